@@ -0,0 +1,74 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// The Board operations the searches call for every node, each invocation works on the next board of the group.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"puzzle", "puzzle3x3", "puzzle4x4"})
+    public String group;
+
+    @Param({"EASY", "MEDIUM", "HARD", "HARDEST"})
+    public Difficulty difficulty;
+
+    private Object[] boards;
+    private Object[] copies; // equal boards that are different objects
+    private int cursor;
+
+    @Setup
+    public void setup() throws Throwable {
+        boards = Puzzles.boards(group, difficulty);
+        copies = Puzzles.boards(group, difficulty);
+    }
+
+    private int next() {
+        cursor = cursor + 1 == boards.length ? 0 : cursor + 1;
+        return cursor;
+    }
+
+    @Benchmark
+    public void neighbors(Blackhole blackhole) throws Throwable {
+        Iterable<?> neighbors = (Iterable<?>) (Object) Puzzles.NEIGHBORS.invokeExact(boards[next()]);
+        for (Object neighbor : neighbors) blackhole.consume(neighbor);
+    }
+
+    @Benchmark
+    public int manhattan() throws Throwable {
+        return (int) Puzzles.MANHATTAN.invokeExact(boards[next()]);
+    }
+
+    @Benchmark
+    public int hamming() throws Throwable {
+        return (int) Puzzles.HAMMING.invokeExact(boards[next()]);
+    }
+
+    @Benchmark
+    public boolean equalBoards() throws Throwable {
+        int k = next();
+        return (boolean) Puzzles.EQUALS.invokeExact(boards[k], copies[k]);
+    }
+
+    @Benchmark
+    public Object twin() throws Throwable {
+        return (Object) Puzzles.TWIN.invokeExact(boards[next()]);
+    }
+}
@@ -0,0 +1,14 @@
+package bench;
+
+// the sample boards of a difficulty: the moves of their optimal solution, written in the file names
+public enum Difficulty {
+    EASY(0, 10), MEDIUM(11, 20), HARD(21, 30), HARDEST(31, 80);
+
+    final int minMoves;
+    final int maxMoves;
+
+    Difficulty(int minMoves, int maxMoves) {
+        this.minMoves = minMoves;
+        this.maxMoves = maxMoves;
+    }
+}
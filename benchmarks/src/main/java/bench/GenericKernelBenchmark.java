@@ -0,0 +1,9 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Fork;
+
+// KernelBenchmark with -Dpuzzle.kernels=false: the generic Board code for every dimension, the baseline
+// the kernels are measured against
+@Fork(value = 1, jvmArgsAppend = "-Dpuzzle.kernels=false")
+public class GenericKernelBenchmark extends KernelBenchmark {
+}
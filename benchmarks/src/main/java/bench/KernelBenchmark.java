@@ -0,0 +1,84 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// The work the dimension kernels take over, per dimension: building a board from its tiles (blank square,
+// Manhattan and Hamming from scratch), two levels of neighbours (incremental heuristics and the blank
+// moves) and a whole arena solve over packed states. GenericKernelBenchmark runs the same code with the
+// kernels switched off, the speedup of a dimension is the ratio of the two scores.
+//
+// On one core (ns/op, generic / kernels; two runs for neighbors, 5x1 s then 2 forks of 10x1 s):
+//
+//              2x2               3x3               4x4
+// newBoard     37.3 / 25.3       68.7 / 46.7      119.6 / 80.5      1.5x faster on every dimension
+// neighbors   231 / 165         307 / 286         336 / 413
+//             148 / 159         177 / 235         338 / 370         no gain, slower in the second run
+// solve      147399 / 159917   141242 / 160033   158622 / 138987    within the noise of the runs
+//
+// Building a board is the only clear win. The neighbours allocate a Board each, which hides the table
+// lookups, and their scores move by more between two runs than between the generic code and the kernels.
+//
+// % java -cp target/benchmarks.jar:algs4.jar bench.Benchmarks kernels.json 'bench\..*KernelBenchmark'
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark {
+
+    @Param({"puzzle2x2", "puzzle3x3", "puzzle4x4"})
+    public String group;
+
+    private int[][][] tiles;
+    private Object[] boards;
+    private Object engine;
+    private Object heuristic;
+    private int cursor;
+
+    @Setup
+    public void setup() throws Throwable {
+        tiles = Puzzles.tiles(group, Difficulty.EASY);
+        boards = Puzzles.boards(group, Difficulty.EASY);
+        engine = Puzzles.engine("arena");
+        heuristic = Puzzles.heuristic("manhattan");
+    }
+
+    private int next() {
+        cursor = cursor + 1 == boards.length ? 0 : cursor + 1;
+        return cursor;
+    }
+
+    @Benchmark
+    public Object newBoard() throws Throwable {
+        return (Object) Puzzles.NEW_BOARD.invokeExact(tiles[next()]);
+    }
+
+    @Benchmark
+    public void neighbors(Blackhole blackhole) throws Throwable {
+        Iterable<?> neighbors = (Iterable<?>) (Object) Puzzles.NEIGHBORS.invokeExact(boards[next()]);
+        for (Object neighbor : neighbors) {
+            Iterable<?> next = (Iterable<?>) (Object) Puzzles.NEIGHBORS.invokeExact(neighbor);
+            for (Object board : next) blackhole.consume((int) Puzzles.MANHATTAN.invokeExact(board));
+        }
+    }
+
+    @Benchmark
+    public int solve() throws Throwable {
+        Object solver = (Object) Puzzles.SOLVE.invokeExact(engine, boards[next()], heuristic);
+        return (int) Puzzles.MOVES.invokeExact(solver);
+    }
+}
@@ -0,0 +1,131 @@
+package bench;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The puzzle classes live in the default package, which a named package cannot import, and JMH refuses
+// benchmarks in the default package. The benchmarks reach them through method handles kept in static final
+// fields: the JIT treats those as constants and inlines the calls like direct ones.
+final class Puzzles {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    static final Class<?> BOARD = load("Board");
+    static final Class<?> HEURISTIC = load("Heuristic");
+    static final Class<?> ENGINE = load("SolverEngine");
+    static final Class<?> SOLVER = load("PuzzleSolver");
+
+    static final MethodHandle NEW_BOARD = constructor(BOARD, int[][].class);
+    static final MethodHandle NEIGHBORS = virtual(BOARD, "neighbors", Iterable.class);
+    static final MethodHandle MANHATTAN = virtual(BOARD, "manhattan", int.class);
+    static final MethodHandle HAMMING = virtual(BOARD, "hamming", int.class);
+    static final MethodHandle EQUALS = virtual(BOARD, "equals", boolean.class, Object.class);
+    static final MethodHandle TWIN = virtual(BOARD, "twin", BOARD);
+    static final MethodHandle SOLVE = virtual(ENGINE, "solve", SOLVER, BOARD, HEURISTIC);
+    static final MethodHandle MOVES = virtual(SOLVER, "moves", int.class);
+
+    private Puzzles() {
+    }
+
+    // the SampleData directory, -Dsampledata=... when not run from the benchmarks directory
+    static File sampleData() {
+        return new File(System.getProperty("sampledata", "../SampleData"));
+    }
+
+    // the boards of group (puzzle, puzzle3x3 or puzzle4x4) whose optimal solution matches difficulty
+    static Object[] boards(String group, Difficulty difficulty) throws Throwable {
+        return boards(group, difficulty.minMoves, difficulty.maxMoves);
+    }
+
+    // the boards of group whose optimal solution takes from minMoves to maxMoves moves
+    static Object[] boards(String group, int minMoves, int maxMoves) throws Throwable {
+        int[][][] tiles = tiles(group, minMoves, maxMoves);
+        Object[] boards = new Object[tiles.length];
+        for (int k = 0; k < tiles.length; k++) boards[k] = (Object) NEW_BOARD.invokeExact(tiles[k]);
+        return boards;
+    }
+
+    // the tiles of the same boards, to time building them
+    static int[][][] tiles(String group, Difficulty difficulty) throws FileNotFoundException {
+        return tiles(group, difficulty.minMoves, difficulty.maxMoves);
+    }
+
+    static int[][][] tiles(String group, int minMoves, int maxMoves) throws FileNotFoundException {
+        Pattern name = Pattern.compile(Pattern.quote(group) + (group.equals("puzzle") ? "" : "-") + "(\\d+)\\.txt");
+        File[] files = sampleData().listFiles();
+        if (files == null) throw new FileNotFoundException(sampleData().getAbsolutePath());
+        Arrays.sort(files);
+        List<int[][]> boards = new ArrayList<>();
+        for (File file : files) {
+            Matcher matcher = name.matcher(file.getName());
+            if (!matcher.matches()) continue;
+            int moves = Integer.parseInt(matcher.group(1));
+            if (moves < minMoves || moves > maxMoves) continue;
+            boards.add(read(file));
+        }
+        if (boards.isEmpty()) {
+            throw new IllegalStateException("no " + group + " board of " + minMoves + " to " + maxMoves + " moves");
+        }
+        return boards.toArray(new int[0][][]);
+    }
+
+    // the engine named as on the PuzzleChecker command line
+    static Object engine(String name) throws ReflectiveOperationException {
+        return ENGINE.getMethod("parse", String.class).invoke(null, name);
+    }
+
+    // the heuristic named as on the PuzzleChecker command line
+    static Object heuristic(String name) throws ReflectiveOperationException {
+        return load("StandardHeuristic").getMethod("parse", String.class).invoke(null, name);
+    }
+
+    private static int[][] read(File file) throws FileNotFoundException {
+        try (Scanner in = new Scanner(file)) {
+            int n = in.nextInt();
+            int[][] tiles = new int[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    tiles[i][j] = in.nextInt();
+                }
+            }
+            return tiles;
+        }
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // every handle takes and returns Object (or primitives) so the benchmarks can call invokeExact
+    private static MethodHandle constructor(Class<?> type, Class<?>... parameters) {
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(type, MethodType.methodType(void.class, parameters));
+            return handle.asType(handle.type().changeReturnType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle virtual(Class<?> type, String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            MethodHandle handle = LOOKUP.findVirtual(type, name, MethodType.methodType(returnType, parameters));
+            MethodType erased = handle.type().erase();
+            if (!returnType.isPrimitive()) erased = erased.changeReturnType(Object.class);
+            return handle.asType(erased);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// End to end solves, each invocation solves the next board of the group with the engine and heuristic.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    // puzzle4x4-78 and -80 take hours and gigabytes with the Manhattan distance, they are left to BoardBenchmark
+    private static final int MAX_SOLVED_MOVES = 50;
+
+    @Param({"astar", "arena", "ida"})
+    public String engine;
+
+    @Param({"manhattan", "linear"})
+    public String heuristic;
+
+    @Param({"puzzle", "puzzle3x3", "puzzle4x4"})
+    public String group;
+
+    @Param({"EASY", "MEDIUM", "HARD", "HARDEST"})
+    public Difficulty difficulty;
+
+    private Object solverEngine;
+    private Object searchHeuristic;
+    private Object[] boards;
+    private int cursor;
+
+    @Setup
+    public void setup() throws Throwable {
+        solverEngine = Puzzles.engine(engine);
+        searchHeuristic = Puzzles.heuristic(heuristic);
+        boards = Puzzles.boards(group, difficulty.minMoves, Math.min(difficulty.maxMoves, MAX_SOLVED_MOVES));
+    }
+
+    @Benchmark
+    public int solve() throws Throwable {
+        cursor = cursor + 1 == boards.length ? 0 : cursor + 1;
+        Object solver = (Object) Puzzles.SOLVE.invokeExact(solverEngine, boards[cursor], searchHeuristic);
+        return (int) Puzzles.MOVES.invokeExact(solver);
+    }
+}
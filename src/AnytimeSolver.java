@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Anytime repairing A* (ARA*): a weighted A* ordered by g + w * h finds a first solution quickly, at most w
+// times longer than the shortest one. The weight is then lowered step by step down to 1, each search
+// starting from the open list of the previous one instead of from scratch: the boards whose moves improved
+// after they were expanded are set aside as inconsistent and only those are put back in the open list.
+//
+// When the budget runs out (deadline, nodes or a cancelled CancellationToken) the best solution found so
+// far is kept with a proven bound: it is at most suboptimalityBound() times longer than a shortest one.
+// A budget that runs out before any solution was found throws BudgetExceededException like the other engines.
+//
+// Weights are multiples of 1/SCALE so that g + w * h is an integer priority for the BucketQueue.
+public class AnytimeSolver implements PuzzleSolver {
+    public static final double DEFAULT_WEIGHT = 3.0;
+    public static final double DEFAULT_STEP = 0.5;
+    private static final int SCALE = 4;
+
+    private final Board initial;
+    private final Heuristic heuristic;
+    private final SearchBudget budget;
+    private final SearchStatistics statistics;
+    private final boolean isSolvable;
+    private Map<Board, Node> nodes = new HashMap<>();
+    private BucketQueue<Node> open = new BucketQueue<>();
+    private List<Node> inconsistent = new ArrayList<>();
+    private int weight; // times SCALE
+    private int iteration; // the boards expanded in an earlier iteration are open to expansion again
+    private Node goal;
+    private int lowerBound; // no solution is shorter
+    private double weightBound = Double.POSITIVE_INFINITY; // the weight of the last search that completed
+    private int searches; // searches that completed
+    private int movesValue = -1;
+    private MoveSequence moveSequence;
+
+    // find a solution to the initial board, the shortest one when the search is not stopped
+    public AnytimeSolver(Board given) {
+        this(given, StandardHeuristic.MANHATTAN, SearchBudget.UNLIMITED);
+    }
+
+    // find the best solution to the initial board the budget allows
+    public AnytimeSolver(Board given, Heuristic heuristic, SearchBudget budget) {
+        this(given, heuristic, DEFAULT_WEIGHT, DEFAULT_STEP, budget, null, 1);
+    }
+
+    // same as above, starting from weight and lowering it by step after each solution,
+    // listener (may be null) is told about the search every interval expansions
+    public AnytimeSolver(Board given, Heuristic heuristic, double weight, double step, SearchBudget budget,
+                         SearchListener listener, int interval) {
+        if (null == given || null == heuristic || null == budget) throw new IllegalArgumentException();
+        if (weight < 1.0) throw new IllegalArgumentException("weight must be at least 1");
+        if (step <= 0.0) throw new IllegalArgumentException("step must be positive");
+        statistics = new SearchStatistics(listener, interval);
+        initial = given;
+        this.heuristic = heuristic;
+        this.budget = budget;
+        isSolvable = initial.isSolvable();
+        if (!isSolvable) {
+            statistics.finish();
+            return;
+        }
+
+        this.weight = (int) Math.round(weight * SCALE);
+        int stepOf = Math.max(1, (int) Math.round(step * SCALE));
+        Node start = new Node(initial, heuristic.estimate(initial));
+        start.moves = 0;
+        nodes.put(initial, start);
+        lowerBound = start.heuristicValue;
+        if (initial.isGoal()) goal = start;
+        else insert(start);
+
+        try {
+            while (true) {
+                improvePath();
+                if (goal == null) throw new IllegalStateException("no solution to a solvable board");
+                int completed = this.weight;
+                weightBound = (double) completed / SCALE;
+                searches++;
+                lowerBound = Math.max(lowerBound, Math.min(goal.moves, reopen(Math.max(SCALE, completed - stepOf))));
+                if (completed == SCALE || goal.moves <= lowerBound) break;
+            }
+        } catch (BudgetExceededException e) {
+            if (goal == null) throw e;
+        } finally {
+            statistics.finish();
+        }
+
+        recordSolution();
+        // the search graph is not needed anymore
+        nodes = null;
+        open = null;
+        inconsistent = null;
+    }
+
+    // expand the boards in order of g + w * h until none could lead to a shorter solution than the best one
+    private void improvePath() {
+        while (!open.isEmpty()) {
+            int key = open.minPriority();
+            if (goal != null && SCALE * goal.moves <= key) return;
+            Node node = open.delMin();
+            // its moves improved after it was inserted, it is in the queue again with a lower key
+            if (node.key != key) continue;
+            node.key = -1;
+            node.closedIn = iteration;
+            statistics.expanded(open.size(), key / SCALE, node.moves);
+            budget.check(statistics, nodes.size(), open.size());
+
+            int to = node.board.blankIndex();
+            for (Board board : node.board.neighbors()) {
+                Node next = nodes.get(board);
+                if (next == null) {
+                    int from = board.blankIndex();
+                    next = new Node(board, heuristic.update(board, node.heuristicValue, board.tileAt(to), from, to));
+                    nodes.put(board, next);
+                    statistics.generated++;
+                } else if (next.moves <= node.moves + 1) {
+                    statistics.duplicatesPruned++;
+                    continue;
+                }
+                next.moves = node.moves + 1;
+                next.previous = node;
+                if (board.isGoal()) goal = next;
+                else if (next.closedIn == iteration) setAside(next);
+                else insert(next);
+            }
+        }
+    }
+
+    private void insert(Node node) {
+        node.key = SCALE * node.moves + weight * node.heuristicValue;
+        open.insert(node, node.key, node.heuristicValue);
+    }
+
+    // an expanded board reached with fewer moves waits for the next iteration
+    private void setAside(Node node) {
+        if (node.inconsistentIn == iteration) return;
+        node.inconsistentIn = iteration;
+        inconsistent.add(node);
+    }
+
+    // move the inconsistent boards to the open list and order it by the next weight, returns the lowest
+    // g + h of these boards, a lower bound of the shortest solution
+    private int reopen(int nextWeight) {
+        List<Node> pending = new ArrayList<>(open.size() + inconsistent.size());
+        while (!open.isEmpty()) {
+            int key = open.minPriority();
+            Node node = open.delMin();
+            if (node.key == key) pending.add(node);
+        }
+        for (Node node : inconsistent) {
+            if (node.key < 0) pending.add(node);
+        }
+        inconsistent.clear();
+        iteration++;
+        weight = nextWeight;
+
+        int lowest = Integer.MAX_VALUE;
+        for (Node node : pending) {
+            lowest = Math.min(lowest, node.moves + node.heuristicValue);
+            insert(node);
+        }
+        return lowest;
+    }
+
+    // follow the previous links from the goal, this path may be shorter than the moves of the goal
+    // when a board along it improved after its successor was reached
+    private void recordSolution() {
+        int length = 0;
+        for (Node node = goal; node.previous != null; node = node.previous) length++;
+        int[] directions = new int[length];
+        int n = initial.dimension();
+        int k = length;
+        for (Node node = goal; node.previous != null; node = node.previous) {
+            directions[--k] = MoveSequence.direction(node.previous.board.blankIndex(), node.board.blankIndex(), n);
+        }
+        moveSequence = MoveSequence.of(directions, length);
+        movesValue = length;
+    }
+
+    // the solution is at most this many times longer than a shortest one, 1 once it is proven optimal
+    public double suboptimalityBound() {
+        if (!isSolvable) return 1.0;
+        double bound = Math.min(weightBound, lowerBound == 0 ? 1.0 : (double) movesValue / lowerBound);
+        return Math.max(1.0, bound);
+    }
+
+    // is the solution a shortest one?
+    public boolean isOptimal() {
+        return suboptimalityBound() == 1.0;
+    }
+
+    // number of weighted searches that ran to completion, each one returning a solution at least as short
+    public int searches() {
+        return searches;
+    }
+
+    // what the search did to find the solution
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    // is the initial board solvable?
+    public boolean isSolvable() {
+        return isSolvable;
+    }
+
+    // number of moves of the best solution found, -1 if unsolvable
+    public int moves() {
+        return movesValue;
+    }
+
+    // sequence of boards in the best solution found
+    public Iterable<Board> solution() {
+        if (!isSolvable()) return null;
+        return moveSequence.boards(initial);
+    }
+
+    // the moves of the blank square in the best solution found
+    public MoveSequence moveSequence() {
+        return moveSequence;
+    }
+
+    // a board with the fewest moves it was reached with so far
+    private static class Node {
+        final Board board;
+        final int heuristicValue;
+        Node previous;
+        int moves = Integer.MAX_VALUE;
+        int key = -1; // its priority while it is in the open list
+        int closedIn = -1; // iteration it was last expanded in
+        int inconsistentIn = -1; // iteration it was last set aside in
+
+        Node(Board board, int heuristicValue) {
+            this.board = board;
+            this.heuristicValue = heuristicValue;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.Arrays;
+
+// A* over an arena: the nodes are not objects but indexes into parallel primitive arrays holding the packed
+// board, its blank square, its moves, its heuristic and the index of its parent. The arrays grow by chunks
+// that are never copied, neighbours are written into buffers allocated once, the open list and the closed
+// table store primitives only. Once the chunks, buckets and table have grown, an expansion allocates nothing.
+// Only boards that fit in a long (up to 4x4) are supported.
+public class ArenaSolver implements PuzzleSolver {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int NO_PARENT = -1;
+
+    // the arena, node i lives at chunk i >>> CHUNK_BITS, offset i & CHUNK_MASK
+    private long[][] states = new long[16][];
+    private int[][] parents = new int[16][];
+    private short[][] movesOf = new short[16][];
+    private short[][] heuristicOf = new short[16][];
+    private byte[][] blanks = new byte[16][];
+    private int nodeCount;
+
+    private final Board initial;
+    private final boolean isSolvable;
+    private int movesValue = -1;
+    private final SearchStatistics statistics;
+    private MoveSequence moveSequence;
+
+    // find a solution to the initial board (using the A* algorithm)
+    public ArenaSolver(Board given) {
+        this(given, StandardHeuristic.MANHATTAN);
+    }
+
+    // find a solution to the initial board with the A* algorithm guided by heuristic
+    public ArenaSolver(Board given, Heuristic heuristic) {
+        this(given, heuristic, SearchBudget.UNLIMITED);
+    }
+
+    // find a solution to the initial board with the A* algorithm guided by heuristic,
+    // throws BudgetExceededException when the search goes over budget
+    public ArenaSolver(Board given, Heuristic heuristic, SearchBudget budget) {
+        this(given, heuristic, budget, null, 1);
+    }
+
+    // same as above, listener (may be null) is told about the search every interval expansions
+    public ArenaSolver(Board given, Heuristic heuristic, SearchBudget budget, SearchListener listener, int interval) {
+        if (null == given || null == heuristic || null == budget) throw new IllegalArgumentException();
+        statistics = new SearchStatistics(listener, interval);
+        if (!given.isPacked()) throw new IllegalArgumentException("boards larger than 4x4 are not supported");
+        initial = given;
+        isSolvable = initial.isSolvable();
+        if (!isSolvable) {
+            statistics.finish();
+            return;
+        }
+
+        int dimension = initial.dimension();
+        long goal = PackedBoards.goal(dimension);
+        PackedBoards.Grid grid = new PackedBoards.Grid(dimension);
+        long[] neighborStates = new long[4];
+        int[] neighborBlanks = new int[4];
+
+        IntBucketQueue open = new IntBucketQueue();
+        ClosedTable closed = new ClosedTable(1 << 16);
+
+        int h = heuristic.estimate(initial);
+        int root = add(initial.packed(), initial.blankIndex(), 0, h, NO_PARENT);
+        closed.put(initial.packed(), 0);
+        open.insert(root, h, h);
+
+        while (true) {
+            budget.check(statistics, nodeCount, open.size());
+            int current = open.delMin();
+            int chunk = current >>> CHUNK_BITS;
+            int offset = current & CHUNK_MASK;
+            long state = states[chunk][offset];
+            int moves = movesOf[chunk][offset];
+            // a shorter path to this board was found after it was inserted
+            if (closed.get(state) < moves) {
+                statistics.duplicatesPruned++;
+                continue;
+            }
+            if (state == goal) {
+                movesValue = moves;
+                recordSolution(current, moves);
+                break;
+            }
+
+            int blank = blanks[chunk][offset];
+            int value = heuristicOf[chunk][offset];
+            statistics.expanded(open.size(), moves + value, moves);
+            int count = PackedBoards.neighbors(state, blank, dimension, neighborStates, neighborBlanks);
+            for (int k = 0; k < count; k++) {
+                long neighbor = neighborStates[k];
+                int knownMoves = closed.get(neighbor);
+                if (knownMoves >= 0 && knownMoves <= moves + 1) {
+                    statistics.duplicatesPruned++;
+                    continue;
+                }
+                closed.put(neighbor, moves + 1);
+                // the tile at the neighbour's blank square slid into our blank square
+                int from = neighborBlanks[k];
+                int next = heuristic.update(grid.set(neighbor), value, PackedBoards.tileAt(state, from), from, blank);
+                int index = add(neighbor, from, moves + 1, next, current);
+                open.insert(index, moves + 1 + next, next);
+                statistics.generated++;
+            }
+        }
+
+        statistics.finish();
+        // the search graph is not needed anymore, only the nodes of the solution were kept
+        states = null;
+        parents = null;
+        movesOf = null;
+        heuristicOf = null;
+        blanks = null;
+    }
+
+    // store a node in the arena and return its index
+    private int add(long state, int blank, int moves, int h, int parent) {
+        int index = nodeCount++;
+        int chunk = index >>> CHUNK_BITS;
+        if (chunk == states.length) {
+            states = Arrays.copyOf(states, chunk * 2);
+            parents = Arrays.copyOf(parents, chunk * 2);
+            movesOf = Arrays.copyOf(movesOf, chunk * 2);
+            heuristicOf = Arrays.copyOf(heuristicOf, chunk * 2);
+            blanks = Arrays.copyOf(blanks, chunk * 2);
+        }
+        if (states[chunk] == null) {
+            states[chunk] = new long[CHUNK_SIZE];
+            parents[chunk] = new int[CHUNK_SIZE];
+            movesOf[chunk] = new short[CHUNK_SIZE];
+            heuristicOf[chunk] = new short[CHUNK_SIZE];
+            blanks[chunk] = new byte[CHUNK_SIZE];
+        }
+        int offset = index & CHUNK_MASK;
+        states[chunk][offset] = state;
+        parents[chunk][offset] = parent;
+        movesOf[chunk][offset] = (short) moves;
+        heuristicOf[chunk][offset] = (short) h;
+        blanks[chunk][offset] = (byte) blank;
+        return index;
+    }
+
+    // keep the moves of the blank square on the path to goal, from the initial board
+    private void recordSolution(int goal, int moves) {
+        int[] directions = new int[moves];
+        int k = moves;
+        int to = blanks[goal >>> CHUNK_BITS][goal & CHUNK_MASK];
+        for (int node = parents[goal >>> CHUNK_BITS][goal & CHUNK_MASK]; node != NO_PARENT;
+             node = parents[node >>> CHUNK_BITS][node & CHUNK_MASK]) {
+            int from = blanks[node >>> CHUNK_BITS][node & CHUNK_MASK];
+            directions[--k] = MoveSequence.direction(from, to, initial.dimension());
+            to = from;
+        }
+        moveSequence = MoveSequence.of(directions, moves);
+    }
+
+    // number of arena nodes created by the search
+    public int nodes() {
+        return nodeCount;
+    }
+
+    // what the search did to find the solution
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    // is the initial board solvable?
+    public boolean isSolvable() {
+        return isSolvable;
+    }
+
+    // min number of moves to solve initial board
+    public int moves() {
+        return movesValue;
+    }
+
+    // sequence of boards in a shortest solution
+    public Iterable<Board> solution() {
+        if (!isSolvable()) return null;
+        return moveSequence.boards(initial);
+    }
+
+    // the moves of the blank square in a shortest solution
+    public MoveSequence moveSequence() {
+        return moveSequence;
+    }
+}
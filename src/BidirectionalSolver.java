@@ -0,0 +1,308 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+
+// Bidirectional A* meeting in the middle (MM, Holte et al. 2016): one search forward from the initial board
+// guided by the heuristic, one backward from the goal guided by the Manhattan distance to the initial board,
+// each expanding its nodes in order of max(g + h, 2g). The 2g term keeps either search from going past the
+// middle of the solution, so neither explores the deep layers that make a long A* search blow up.
+//
+// Every board generated in one direction is looked up in the table of the other one, a hit is a solution
+// through that board. The best of these is a shortest one once it is no longer than the lowest of
+// these lower bounds: the lowest priority in either open list, the lowest g + h in either open list and
+// the lowest g of both open lists added together plus one move.
+// Only boards that fit in a long (up to 4x4) are supported.
+public class BidirectionalSolver implements PuzzleSolver {
+    private static final long NONE = 0L; // the parent of both start boards, no valid board packs to 0
+
+    private final Board initial;
+    private final boolean isSolvable;
+    private final SearchStatistics statistics;
+    private int movesValue = -1;
+    private MoveSequence moveSequence;
+    private long forwardExpanded;
+    private long backwardExpanded;
+
+    // find a shortest solution to the initial board
+    public BidirectionalSolver(Board given) {
+        this(given, StandardHeuristic.MANHATTAN);
+    }
+
+    // find a shortest solution to the initial board, heuristic guides the forward search
+    public BidirectionalSolver(Board given, Heuristic heuristic) {
+        this(given, heuristic, SearchBudget.UNLIMITED);
+    }
+
+    // same as above, throws BudgetExceededException when the search goes over budget
+    public BidirectionalSolver(Board given, Heuristic heuristic, SearchBudget budget) {
+        this(given, heuristic, budget, null, 1);
+    }
+
+    // same as above, listener (may be null) is told about the search every interval expansions
+    public BidirectionalSolver(Board given, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                               int interval) {
+        if (null == given || null == heuristic || null == budget) throw new IllegalArgumentException();
+        if (!given.isPacked()) throw new IllegalArgumentException("boards larger than 4x4 are not supported");
+        statistics = new SearchStatistics(listener, interval);
+        initial = given;
+        isSolvable = initial.isSolvable();
+        if (!isSolvable) {
+            statistics.finish();
+            return;
+        }
+
+        int dimension = initial.dimension();
+        long start = initial.packed();
+        long goal = PackedBoards.goal(dimension);
+        Frontier forward = new Frontier(dimension, heuristic, start);
+        Frontier backward = new Frontier(dimension, new TowardBoard(initial), goal);
+
+        Meeting meeting = new Meeting();
+        if (start == goal) meeting.found(start, 0);
+        try {
+            while (!forward.open.isEmpty() && !backward.open.isEmpty()) {
+                int forwardPriority = forward.open.minPriority();
+                int backwardPriority = backward.open.minPriority();
+                int lowerBound = Math.max(Math.min(forwardPriority, backwardPriority),
+                        Math.max(Math.max(forward.lowestF(), backward.lowestF()),
+                                forward.lowestMoves() + backward.lowestMoves() + 1));
+                if (meeting.moves <= lowerBound) break;
+                budget.check(statistics, statistics.generated, forward.open.size() + backward.open.size());
+
+                // the direction of the lowest priority, the smaller open list on a tie
+                boolean forwardFirst = forwardPriority < backwardPriority
+                        || forwardPriority == backwardPriority && forward.open.size() <= backward.open.size();
+                if (forwardFirst) forward.expand(backward, meeting, forward.open.size() + backward.open.size());
+                else backward.expand(forward, meeting, forward.open.size() + backward.open.size());
+            }
+        } finally {
+            forwardExpanded = forward.expanded;
+            backwardExpanded = backward.expanded;
+            statistics.finish();
+        }
+        if (meeting.moves == Integer.MAX_VALUE) throw new IllegalStateException("no solution to a solvable board");
+
+        recordSolution(forward, backward, meeting.state);
+        movesValue = meeting.moves;
+    }
+
+    // the moves from the initial board to the meeting board along the forward parents,
+    // then on to the goal along the backward parents
+    private void recordSolution(Frontier forward, Frontier backward, long meeting) {
+        int dimension = initial.dimension();
+        int[] directions = new int[64];
+        int count = 0;
+        for (long state = meeting; forward.table.parent(state) != NONE; state = forward.table.parent(state)) {
+            if (count == directions.length) directions = Arrays.copyOf(directions, count * 2);
+            directions[count++] = MoveSequence.direction(PackedBoards.blankIndex(forward.table.parent(state), dimension),
+                    PackedBoards.blankIndex(state, dimension), dimension);
+        }
+        // the forward moves were collected from the meeting board back
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int direction = directions[i];
+            directions[i] = directions[j];
+            directions[j] = direction;
+        }
+        for (long state = meeting; backward.table.parent(state) != NONE; state = backward.table.parent(state)) {
+            if (count == directions.length) directions = Arrays.copyOf(directions, count * 2);
+            directions[count++] = MoveSequence.direction(PackedBoards.blankIndex(state, dimension),
+                    PackedBoards.blankIndex(backward.table.parent(state), dimension), dimension);
+        }
+        moveSequence = MoveSequence.of(directions, count);
+    }
+
+    // boards expanded by the search from the initial board
+    public long forwardExpanded() {
+        return forwardExpanded;
+    }
+
+    // boards expanded by the search from the goal
+    public long backwardExpanded() {
+        return backwardExpanded;
+    }
+
+    // what the search did to find the solution, both directions together
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    // is the initial board solvable?
+    public boolean isSolvable() {
+        return isSolvable;
+    }
+
+    // min number of moves to solve initial board
+    public int moves() {
+        return movesValue;
+    }
+
+    // sequence of boards in a shortest solution
+    public Iterable<Board> solution() {
+        if (!isSolvable()) return null;
+        return moveSequence.boards(initial);
+    }
+
+    // the moves of the blank square in a shortest solution
+    public MoveSequence moveSequence() {
+        return moveSequence;
+    }
+
+    // the shortest solution through a board reached by both searches so far
+    private static final class Meeting {
+        int moves = Integer.MAX_VALUE;
+        long state;
+
+        void found(long state, int moves) {
+            if (moves >= this.moves) return;
+            this.moves = moves;
+            this.state = state;
+        }
+    }
+
+    // a board in an open list, stale once its board is reached with fewer moves
+    private static final class Node {
+        final long state;
+        final int blank;
+        final int moves;
+        final int heuristicValue;
+
+        Node(long state, int blank, int moves, int heuristicValue) {
+            this.state = state;
+            this.blank = blank;
+            this.moves = moves;
+            this.heuristicValue = heuristicValue;
+        }
+    }
+
+    // one direction of the search: its open list ordered by max(g + h, 2g) and the table of the fewest moves
+    // each board it reached was reached with, and the board it was reached from
+    private final class Frontier {
+        final ClosedTable table = new ClosedTable(1 << 12, true);
+        final BucketQueue<Node> open = new BucketQueue<>();
+        private final int dimension;
+        private final Heuristic heuristic;
+        private final PackedBoards.Grid grid;
+        private final long[] neighborStates = new long[4];
+        private final int[] neighborBlanks = new int[4];
+        // number of nodes in the open list of each g and of each g + h, stale ones included, these only
+        // lower the bounds so the solution stays a shortest one
+        private int[] countAtMoves = new int[64];
+        private int[] countAtF = new int[64];
+        private int minMoves;
+        private int minF;
+        long expanded;
+
+        Frontier(int dimension, Heuristic heuristic, long start) {
+            this.dimension = dimension;
+            this.heuristic = heuristic;
+            grid = new PackedBoards.Grid(dimension);
+            table.put(start, 0, NONE);
+            insert(new Node(start, PackedBoards.blankIndex(start, dimension), 0, heuristic.estimate(grid.set(start))));
+        }
+
+        // lowest g + h in the open list
+        int lowestF() {
+            while (countAtF[minF] == 0) minF++;
+            return minF;
+        }
+
+        // lowest g in the open list
+        int lowestMoves() {
+            while (countAtMoves[minMoves] == 0) minMoves++;
+            return minMoves;
+        }
+
+        private void insert(Node node) {
+            int f = node.moves + node.heuristicValue;
+            int priority = Math.max(f, 2 * node.moves);
+            // the tie break prefers the deepest node, priority - g never exceeds priority
+            open.insert(node, priority, priority - node.moves);
+            if (f >= countAtF.length) countAtF = Arrays.copyOf(countAtF, Math.max(f + 1, 2 * countAtF.length));
+            if (node.moves >= countAtMoves.length) countAtMoves = Arrays.copyOf(countAtMoves, 2 * countAtMoves.length);
+            countAtF[f]++;
+            countAtMoves[node.moves]++;
+            minF = Math.min(minF, f);
+            minMoves = Math.min(minMoves, node.moves);
+        }
+
+        // expand the node of lowest priority, checking its new boards against the table of other
+        void expand(Frontier other, Meeting meeting, int frontier) {
+            Node node = open.delMin();
+            countAtF[node.moves + node.heuristicValue]--;
+            countAtMoves[node.moves]--;
+            // a shorter path to this board was found after it was inserted
+            if (table.get(node.state) < node.moves) {
+                statistics.duplicatesPruned++;
+                return;
+            }
+            expanded++;
+            statistics.expanded(frontier, node.moves + node.heuristicValue, node.moves);
+
+            int moves = node.moves + 1;
+            int count = PackedBoards.neighbors(node.state, node.blank, dimension, neighborStates, neighborBlanks);
+            for (int k = 0; k < count; k++) {
+                long neighbor = neighborStates[k];
+                int knownMoves = table.get(neighbor);
+                if (knownMoves >= 0 && knownMoves <= moves) {
+                    statistics.duplicatesPruned++;
+                    continue;
+                }
+                table.put(neighbor, moves, node.state);
+                int otherMoves = other.table.get(neighbor);
+                if (otherMoves >= 0) meeting.found(neighbor, moves + otherMoves);
+
+                // the tile at the neighbour's blank square slid into our blank square
+                int from = neighborBlanks[k];
+                int next = heuristic.update(grid.set(neighbor), node.heuristicValue,
+                        PackedBoards.tileAt(node.state, from), from, node.blank);
+                insert(new Node(neighbor, from, moves, next));
+                statistics.generated++;
+            }
+        }
+    }
+
+    // the Manhattan distance to target instead of the goal, what guides the backward search
+    private static final class TowardBoard implements Heuristic {
+        private final int[] home; // index of each tile in target
+
+        TowardBoard(Board target) {
+            int size = target.dimension() * target.dimension();
+            home = new int[size];
+            for (int index = 0; index < size; index++) home[target.tileAt(index)] = index;
+        }
+
+        @Override
+        public int estimate(TileGrid board) {
+            int n = board.dimension();
+            int sum = 0;
+            for (int index = 0; index < n * n; index++) {
+                int tile = board.tileAt(index);
+                if (tile != 0) sum += distance(index, home[tile], n);
+            }
+            return sum;
+        }
+
+        @Override
+        public int update(TileGrid board, int value, int tile, int from, int to) {
+            int n = board.dimension();
+            return value - distance(from, home[tile], n) + distance(to, home[tile], n);
+        }
+
+        private static int distance(int index, int other, int n) {
+            return Math.abs(index / n - other / n) + Math.abs(index % n - other % n);
+        }
+    }
+
+    // the boards expanded by A* and by both directions of this search for each file
+    // % java BidirectionalSolver SampleData/puzzle4x4-4*.txt
+    public static void main(String[] args) {
+        for (String filename : args) {
+            Board initial = PuzzleChecker.readBoard(filename);
+            Solver astar = new Solver(initial);
+            BidirectionalSolver solver = new BidirectionalSolver(initial);
+            StdOut.printf("%s %d moves: A* %d expanded %.3f s, bidirectional %d + %d expanded %.3f s%n", filename,
+                    solver.moves(), astar.statistics().expanded(), astar.statistics().elapsedNanos() / 1e9,
+                    solver.forwardExpanded(), solver.backwardExpanded(), solver.statistics().elapsedNanos() / 1e9);
+        }
+    }
+}
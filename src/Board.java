@@ -2,48 +2,144 @@
 import edu.princeton.cs.algs4.Stack;
 import edu.princeton.cs.algs4.StdRandom;
 
+import java.util.Arrays;
+
+
+public class Board implements TileGrid {
+    private static final int PACKED_BITS = 4; // bits per tile when the whole board fits in one long
+    private static final int MAX_PACKED_DIMENSION = 4; // 4x4 * 4 bits = 64 bits
 
-public class Board {
     private final int dimension; // the dimension of the board
-    private final int[][] tiles;
-    private int boardCounter=0;
+    private final int bitsPerTile;
+    private final long packed; // 4 bits per tile in row-major order, used up to 4x4
+    private final long[] words; // fallback for bigger boards, tiles never straddle two words
     private int manhattan = -1;
     private int hamming = -1;
     private byte blankTile_i;
     private byte blankTile_j;
     private byte swapTwinTile1;
     private byte swapTwinTile2;
-    private boolean foundBlankTile;
 
 
     // create a board from an n-by-n array of tiles,
     // where tiles[row][col] = tile at (row, col)
     public Board(int[][] initials) {
-        // we have to do a double nested loop to copy the entries in a two-dimensional array as Arrays,copyOf or
-        // clone only deep-copy one dimensional array
         int length = initials.length;
         assert 2 <= length;
         assert length < 128;
-        this.tiles = initials;
         this.dimension = length;
+        this.bitsPerTile = bitsPerTile(length);
+        // we pack the tiles once, the int[][] given by the caller is not kept so the board stays immutable
+        long packedTiles = 0L;
+        long[] wordTiles = length <= MAX_PACKED_DIMENSION ? null : new long[wordCount(length, bitsPerTile)];
+        for (int i = 0; i < length; i++) {
+            for (int j = 0; j < length; j++) {
+                int index = i * length + j;
+                long tile = initials[i][j];
+                if (wordTiles == null) packedTiles |= tile << (index * PACKED_BITS);
+                else {
+                    int tilesPerWord = Long.SIZE / bitsPerTile;
+                    wordTiles[index / tilesPerWord] |= tile << ((index % tilesPerWord) * bitsPerTile);
+                }
+            }
+        }
+        this.packed = packedTiles;
+        this.words = wordTiles;
+        findBlankTile();
         this.hamming = hamming();
         this.manhattan = manhattan();
-        findBlankTile(initials);
     }
 
-    // defensive copy of input to ensure immutability
-    private void findBlankTile(int[][] tiles) {
-        int N = tiles.length;
-        for (byte i = 0; i < N; i++) {
-            for (byte j = 0; j < N; j++) {
-                // search for blank tile position as we touch on the array for the first time
-                if (!foundBlankTile) {
-                    if (tiles[i][j] == 0) {
-                        foundBlankTile = true;
-                        blankTile_i = i;
-                        blankTile_j = j;
-                    }
-                }
+    // a board sharing the dimension of its parent, built straight from its packed encoding
+    private Board(int dimension, long packed, long[] words) {
+        this.dimension = dimension;
+        this.bitsPerTile = bitsPerTile(dimension);
+        this.packed = packed;
+        this.words = words;
+        findBlankTile();
+        this.hamming = hamming();
+        this.manhattan = manhattan();
+    }
+
+    // a neighbour of parent where the tile at index slid into the blank square of parent,
+    // only that tile moved so both heuristics are updated from the parent instead of rescanning the grid
+    private Board(Board parent, int index) {
+        int blank = parent.blankTile_i * parent.dimension + parent.blankTile_j;
+        int tile = parent.tileAt(index);
+        this.dimension = parent.dimension;
+        this.bitsPerTile = parent.bitsPerTile;
+        if (parent.words == null) {
+            this.packed = parent.swapPacked(blank, index);
+            this.words = null;
+        } else {
+            this.packed = 0L;
+            this.words = parent.swapWords(blank, index);
+        }
+        // the blank square takes the place of the moved tile
+        this.blankTile_i = (byte) (index / dimension);
+        this.blankTile_j = (byte) (index % dimension);
+        this.manhattan = parent.manhattan - distance(tile, index) + distance(tile, blank);
+        this.hamming = parent.hamming - (tile == index + 1 ? 0 : 1) + (tile == blank + 1 ? 0 : 1);
+    }
+
+    // number of bits needed to store one tile, we keep 4 bits for every board that fits in a long
+    static int bitsPerTile(int dimension) {
+        if (dimension <= MAX_PACKED_DIMENSION) return PACKED_BITS;
+        return Integer.SIZE - Integer.numberOfLeadingZeros(dimension * dimension - 1);
+    }
+
+    static int wordCount(int dimension, int bitsPerTile) {
+        int tilesPerWord = Long.SIZE / bitsPerTile;
+        return (dimension * dimension + tilesPerWord - 1) / tilesPerWord;
+    }
+
+    // the board of dimension up to 4 whose packed() encoding is packed
+    static Board fromPacked(int dimension, long packed) {
+        if (dimension > MAX_PACKED_DIMENSION) throw new IllegalArgumentException("dimension " + dimension + " is not packed");
+        return new Board(dimension, packed, null);
+    }
+
+    // the board larger than 4x4 whose tiles are packed in words, bitsPerTile(dimension) bits per tile
+    // in row-major order and no tile straddling two words
+    static Board fromWords(int dimension, long[] words) {
+        if (dimension <= MAX_PACKED_DIMENSION) throw new IllegalArgumentException("dimension " + dimension + " is packed");
+        if (words.length != wordCount(dimension, bitsPerTile(dimension))) throw new IllegalArgumentException();
+        return new Board(dimension, 0L, words);
+    }
+
+    // does the whole board fit in the single long returned by packed()?
+    boolean isPacked() {
+        return words == null;
+    }
+
+    // the 4 bits per tile encoding of a board up to 4x4, a unique key for the board
+    long packed() {
+        return packed;
+    }
+
+    // the tile stored at the row-major index
+    public int tileAt(int index) {
+        if (words == null) return (int) (packed >>> (index * PACKED_BITS)) & 0xF;
+        int tilesPerWord = Long.SIZE / bitsPerTile;
+        long mask = (1L << bitsPerTile) - 1;
+        return (int) ((words[index / tilesPerWord] >>> ((index % tilesPerWord) * bitsPerTile)) & mask);
+    }
+
+    // search for blank tile position
+    private void findBlankTile() {
+        BoardKernel kernel = BoardKernel.of(dimension);
+        if (kernel != null) {
+            int index = kernel.blankIndex(packed);
+            blankTile_i = (byte) (index / dimension);
+            blankTile_j = (byte) (index % dimension);
+            return;
+        }
+        int size = dimension * dimension;
+        for (int index = 0; index < size; index++) {
+            if (tileAt(index) == 0) {
+                blankTile_i = (byte) (index / dimension);
+                blankTile_j = (byte) (index % dimension);
+                return;
             }
         }
     }
@@ -52,9 +148,9 @@ public class Board {
     public String toString() {
         StringBuilder s = new StringBuilder();
         s.append(dimension + "\n");
-        for (byte i = 0; i < dimension; i++) {
-            for (byte j = 0; j < dimension; j++) {
-                s.append(String.format("%2d ", tiles[i][j]));
+        for (int i = 0; i < dimension; i++) {
+            for (int j = 0; j < dimension; j++) {
+                s.append(String.format("%2d ", tileAt(i * dimension + j)));
             }
             s.append("\n");
         }
@@ -63,7 +159,12 @@ public class Board {
 
     // board dimension n * n
     public int dimension() {
-        return tiles.length;
+        return dimension;
+    }
+
+    // row-major index of the blank square
+    int blankIndex() {
+        return blankTile_i * dimension + blankTile_j;
     }
 
     // sum of Manhattan distances between tiles and goal
@@ -71,19 +172,15 @@ public class Board {
         int manhattanValue;
         // has manhattan already been computed?
         if (manhattan >= 0) return manhattan;
+        BoardKernel kernel = BoardKernel.of(dimension);
+        if (kernel != null) manhattanValue = kernel.manhattan(packed);
         else {
             manhattanValue = 0;
-            for (byte i = 0; i < dimension; i++) {
-                for (byte j = 0; j < dimension; j++) {
-                    int tileFound = tiles[i][j];
-                    int tileExpected = tile(i, j); // the expected number at position (i,j)
-                    if (tileFound != 0) {  // we ignore the blank tile
-                        if (tileFound != tileExpected) {
-                            int i_expected = index_i_of(tileFound);
-                            int j_expected = index_j_of(tileFound);
-                            manhattanValue += Math.abs(i - i_expected) + Math.abs(j - j_expected);
-                        }
-                    }
+            int size = dimension * dimension;
+            for (int index = 0; index < size; index++) {
+                int tileFound = tileAt(index);
+                if (tileFound != 0 && tileFound != index + 1) {  // we ignore the blank tile
+                    manhattanValue += distance(tileFound, index);
                 }
             }
         }
@@ -95,17 +192,16 @@ public class Board {
     public int hamming() {
         int hammingValue;
         if (hamming >= 0) return hamming;
+        BoardKernel kernel = BoardKernel.of(dimension);
+        if (kernel != null) hamming = kernel.hamming(packed);
         else {
             hammingValue = 0;
-            for (byte i = 0; i < dimension; i++) {
-                for (byte j = 0; j < dimension; j++) {
-                    int tileFound = tiles[i][j];
-                    if (tileFound != 0) { // we ignore the blank tile
-                        if (tileFound != tile(i, j)) {
-                            hammingValue++;
-                        } // tileFound is not at its sequential place
-                    }
-                }
+            int size = dimension * dimension;
+            for (int index = 0; index < size; index++) {
+                int tileFound = tileAt(index);
+                if (tileFound != 0 && tileFound != index + 1) { // we ignore the blank tile
+                    hammingValue++;
+                } // tileFound is not at its sequential place
             }
             hamming = hammingValue; // we set the hamming value to avoid recomputation
         }
@@ -117,6 +213,33 @@ public class Board {
         return hamming == 0;
     }
 
+    // is this board solvable? decided with the parity of the permutation so no search is needed:
+    // - odd dimension: the number of inversions must be even
+    // - even dimension: the number of inversions plus the row of the blank tile must be odd
+    public boolean isSolvable() {
+        int size = dimension * dimension;
+        // count the inversions with a Fenwick tree of the tiles already seen, O(n^2 log n) for any dimension
+        int[] seen = new int[size];
+        long inversions = 0;
+        for (int index = 0; index < size; index++) {
+            int tile = tileAt(index);
+            if (tile == 0) continue; // the blank tile is not part of the permutation
+            int smallerOrEqual = 0;
+            for (int k = tile; k > 0; k -= k & -k) smallerOrEqual += seen[k - 1];
+            inversions += (index - (index > blankTile_i * dimension + blankTile_j ? 1 : 0)) - smallerOrEqual;
+            for (int k = tile; k < size; k += k & -k) seen[k - 1]++;
+        }
+        if (dimension % 2 == 1) return inversions % 2 == 0;
+        return (inversions + blankTile_i) % 2 == 1;
+    }
+
+    // Manhattan distance of tile when it sits at index
+    private int distance(int tile, int index) {
+        BoardKernel kernel = BoardKernel.of(dimension);
+        if (kernel != null) return kernel.distance(tile, index);
+        return Math.abs(index / dimension - index_i_of(tile)) + Math.abs(index % dimension - index_j_of(tile));
+    }
+
     private int index_j_of(int tile) {
         return tile - (index_i_of(tile) * dimension + 1);
     }
@@ -125,10 +248,6 @@ public class Board {
         return (tile - 1) / dimension;
     }
 
-    private int tile(int i, int j) {
-        return i * dimension + j + 1;
-    }
-
 
     // does this board equal y?
     @Override
@@ -144,106 +263,80 @@ public class Board {
         if (this.hamming != that.hamming) return false;
         if (this.manhattan != that.manhattan) return false;
 
-        // we assume the two boards are equals until found different
-        int false_count = 0;
+        // the packed encodings hold every tile so comparing them compares the whole boards
+        if (this.words == null) return this.packed == that.packed;
+        return Arrays.equals(this.words, that.words);
+    }
 
-        // we compare the values of each tiles of the two puzzles one at a time and stop as soon as an inequality is found
-        for (byte i = 0; i < dimension; i++) {
-            for (byte j = 0; j < dimension; j++) {
-                if (this.tiles[i][j] != that.tiles[i][j]) {
-                    false_count++;
-                }
-            }
+    @Override
+    public int hashCode() {
+        if (words == null) {
+            // spread the 4 bits tiles over the whole int, neighbours only differ by two nibbles
+            long h = packed * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
         }
-        return false_count == 0;
+        return 31 * dimension + Arrays.hashCode(words);
     }
 
 
-    private static int[][] hardCopy(int[][] initial, int blank_i, int blank_j, int swap_i, int swap_j) {
-        int N = initial[0].length;
-        int[][] hardCopy = new int[N][N];
+    // the encoding obtained by exchanging the tiles at index1 and index2
+    private long swapPacked(int index1, int index2) {
+        long tile1 = tileAt(index1);
+        long tile2 = tileAt(index2);
+        int shift1 = index1 * PACKED_BITS;
+        int shift2 = index2 * PACKED_BITS;
+        long cleared = packed & ~((0xFL << shift1) | (0xFL << shift2));
+        return cleared | (tile2 << shift1) | (tile1 << shift2);
+    }
 
-        // we do an independent copy of initial
-        for (byte i = 0; i < N; i++) {
-            for (byte j = 0; j < N; j++) {
-                // we found the blank tile
-                if (i == blank_i && j == blank_j) {
-                    // we copy it to the swaped location
-                    hardCopy[i][j] = initial[swap_i][swap_j];
-                }
-                // we found the tile to swap
-                else if (i == swap_i && j == swap_j) {
-                    // we copy it to the blank tile location
-                    hardCopy[swap_i][swap_j] = initial[blank_i][blank_j];
-                } else {
-                    // we copy all the  other tiles
-                    hardCopy[i][j] = initial[i][j];
-                }
-            }
-        }
-        return hardCopy;
+    private long[] swapWords(int index1, int index2) {
+        long[] copy = words.clone();
+        int tilesPerWord = Long.SIZE / bitsPerTile;
+        long mask = (1L << bitsPerTile) - 1;
+        long tile1 = tileAt(index1);
+        long tile2 = tileAt(index2);
+        int shift1 = (index1 % tilesPerWord) * bitsPerTile;
+        int shift2 = (index2 % tilesPerWord) * bitsPerTile;
+        copy[index1 / tilesPerWord] = (copy[index1 / tilesPerWord] & ~(mask << shift1)) | (tile2 << shift1);
+        copy[index2 / tilesPerWord] = (copy[index2 / tilesPerWord] & ~(mask << shift2)) | (tile1 << shift2);
+        return copy;
+    }
+
+    // a new board with the tiles at index1 and index2 exchanged, heuristics are computed from scratch
+    private Board swap(int index1, int index2) {
+        if (words == null) return new Board(dimension, swapPacked(index1, index2), null);
+        return new Board(dimension, 0L, swapWords(index1, index2));
     }
 
 
-    // all neighboring boards
+    // all neighboring boards, each one is a single slide of a tile into the blank square
     public Iterable<Board> neighbors() {
-        Board neighbour;
         Stack<Board> neighbours = new Stack<>();
+        int blank = blankTile_i * dimension + blankTile_j;
 
         // we have a top neighbour
-        if (blankTile_i - 1 >= 0) {
-            int[][] tilesCopy = hardCopy(tiles, blankTile_i, blankTile_j, blankTile_i - 1, blankTile_j);
-            neighbour = new Board(tilesCopy);
-            neighbours.push(neighbour);
-        }
+        if (blankTile_i - 1 >= 0) neighbours.push(new Board(this, blank - dimension));
 
         // bottom neighbour
-        if (blankTile_i + 1 < dimension) {
-            int[][] tilesCopy = hardCopy(tiles, blankTile_i, blankTile_j, blankTile_i + 1, blankTile_j);
-            neighbour = new Board(tilesCopy);
-            neighbours.push(neighbour);
-        }
+        if (blankTile_i + 1 < dimension) neighbours.push(new Board(this, blank + dimension));
 
         // right neighbour
-        if (blankTile_j + 1 < dimension) {
-            int[][] tilesCopy = hardCopy(tiles, blankTile_i, blankTile_j, blankTile_i, blankTile_j + 1);
-            neighbour = new Board(tilesCopy);
-            neighbours.push(neighbour);
-        }
+        if (blankTile_j + 1 < dimension) neighbours.push(new Board(this, blank + 1));
 
         // left neighbour
-        if (blankTile_j - 1 >= 0) {
-            int[][] tilesCopy = hardCopy(tiles, blankTile_i, blankTile_j, blankTile_i, blankTile_j - 1);
-            neighbour = new Board(tilesCopy);
-            neighbours.push(neighbour);
-        }
+        if (blankTile_j - 1 >= 0) neighbours.push(new Board(this, blank - 1));
+
         return neighbours;
     }
 
 
-    private static int[][] hardCopy2(int[][] initial, int i_1, int j_1, int i_2, int j_2) {
-        int N = initial[0].length;
-        int[][] hardCopy2 = new int[N][N];
-
-        // we do an independent copy of initial
-        for (byte i = 0; i < N; i++) {
-            for (byte j = 0; j < N; j++) {
-                // we found the tile 1 to swap
-                if (i == i_1 && j == j_1) {
-                    // we copy it to the swaped location
-                    hardCopy2[i][j] = initial[i_2][j_2];
-                }
-                // we found the tile 2 to swap
-                else if (i == i_2 && j == j_2) {
-                    // we copy it to the blank tile location
-                    hardCopy2[i][j] = initial[i_1][j_1];
-                } else {
-                    // we copy all the  other tiles
-                    hardCopy2[i][j] = initial[i][j];
-                }
-            }
-        }
-        return hardCopy2;
+    // the neighbour reached by moving the blank square in direction (see MutableBoard), null off the board
+    Board slide(int direction) {
+        BoardKernel kernel = BoardKernel.of(dimension);
+        int target = kernel != null ? kernel.target(blankTile_i * dimension + blankTile_j, direction)
+                : MutableBoard.target(blankTile_i, blankTile_j, dimension, direction);
+        if (target < 0) return null;
+        return new Board(this, target);
     }
 
 
@@ -257,35 +350,17 @@ public class Board {
             } while (swapTwinTile1 == swapTwinTile2);
         }
 
-        // find location of tile1 & tile2
-        int[] tile1Coordinates = findCoordinates(swapTwinTile1);
-        int[] tiles2Coordinates = findCoordinates(swapTwinTile2);
-
-        int i1 = tile1Coordinates[0];
-        int j1 = tile1Coordinates[1];
-        int i2 = tiles2Coordinates[0];
-        int j2 = tiles2Coordinates[1];
-
-        // we reference the copy of tiles
-        int[][] twin = hardCopy2(tiles, i1, j1, i2, j2);
-
-        return new Board(twin);
+        // find location of tile1 & tile2 and swap them
+        return swap(findIndex(swapTwinTile1), findIndex(swapTwinTile2));
     }
 
-    private int[] findCoordinates(int tile) {
-        int coordinate_i = -1;
-        int coordinate_j = -1;
-        for (byte i = 0; i < dimension; i++) {
-            for (byte j = 0; j < dimension; j++) {
-                if (tiles[i][j] == tile) {
-                    coordinate_i = i;
-                    coordinate_j = j;
-                    break;
-                }
-            }
+    private int findIndex(int tile) {
+        int size = dimension * dimension;
+        for (int index = 0; index < size; index++) {
+            if (tileAt(index) == tile) return index;
         }
         // TODO try catch here for corner cases of NaN and others like not found -1??
-        return new int[]{coordinate_i, coordinate_j};
+        return -1;
     }
 
     // unit testing (not graded)
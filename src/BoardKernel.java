@@ -0,0 +1,138 @@
+// The operations on a packed board (see Board.packed()) specialized for one dimension from 2 to 4: the
+// Manhattan distance of every tile at every square, the goal row and column of every tile and the square
+// the blank moves to in every direction are tables built once, so nothing divides by the dimension, and
+// each dimension has its own subclass whose loops run a constant number of times that the JIT unrolls.
+// Board, PackedBoards and StandardHeuristic go through of(dimension) and keep their generic code for the
+// other dimensions, or for every dimension with -Dpuzzle.kernels=false to measure what the kernels bring.
+abstract class BoardKernel {
+    private static final boolean ENABLED = !"false".equals(System.getProperty("puzzle.kernels"));
+    private static final BoardKernel[] KERNELS = {null, null, new Two(), new Three(), new Four()};
+
+    final int dimension;
+    final int size;
+    final byte[] distances; // distances[tile * size + index], 0 for the blank square
+    final byte[] goalRows; // goalRows[tile], the row of tile on the goal board
+    final byte[] goalColumns;
+    private final byte[] targets; // targets[blank * 4 + direction] (see MutableBoard), -1 off the board
+    private final long lowBits; // the lowest bit of each of the size tiles
+    private final long goal;
+
+    BoardKernel(int dimension) {
+        this.dimension = dimension;
+        size = dimension * dimension;
+        distances = new byte[size * size];
+        goalRows = new byte[size];
+        goalColumns = new byte[size];
+        for (int tile = 1; tile < size; tile++) {
+            goalRows[tile] = (byte) ((tile - 1) / dimension);
+            goalColumns[tile] = (byte) ((tile - 1) % dimension);
+            for (int index = 0; index < size; index++) {
+                distances[tile * size + index] = (byte) (Math.abs(index / dimension - goalRows[tile])
+                        + Math.abs(index % dimension - goalColumns[tile]));
+            }
+        }
+        targets = new byte[size * 4];
+        for (int blank = 0; blank < size; blank++) {
+            for (int direction = MutableBoard.UP; direction <= MutableBoard.RIGHT; direction++) {
+                targets[blank * 4 + direction] = (byte) MutableBoard.target(blank / dimension, blank % dimension,
+                        dimension, direction);
+            }
+        }
+        lowBits = size == 16 ? 0x1111111111111111L : (1L << (4 * size)) / 15;
+        goal = PackedBoards.goal(dimension);
+    }
+
+    // the kernel of dimension, null when there is none
+    static BoardKernel of(int dimension) {
+        return ENABLED && dimension < KERNELS.length ? KERNELS[dimension] : null;
+    }
+
+    // Manhattan distance of tile when it sits at index
+    final int distance(int tile, int index) {
+        return distances[tile * size + index];
+    }
+
+    // sum of the Manhattan distances of the tiles of packed
+    abstract int manhattan(long packed);
+
+    // number of tiles of packed out of place: the tiles that differ from the goal, but the blank square
+    final int hamming(long packed) {
+        long differ = packed ^ goal;
+        differ = (differ | differ >>> 1 | differ >>> 2 | differ >>> 3) & lowBits;
+        int blank = blankIndex(packed);
+        return Long.bitCount(differ) - (blank == size - 1 ? 0 : 1);
+    }
+
+    // index of the blank square of packed, the only tile whose 4 bits are all clear
+    final int blankIndex(long packed) {
+        long clear = ~packed;
+        clear &= clear >>> 1;
+        clear &= clear >>> 2;
+        return Long.numberOfTrailingZeros(clear & lowBits) >>> 2;
+    }
+
+    // index of the square the blank at index blank moves to in direction, -1 if it falls off the board
+    final int target(int blank, int direction) {
+        return targets[blank * 4 + direction];
+    }
+
+    // write the neighbours of packed into the caller's buffers as PackedBoards.neighbors() does
+    final int neighbors(long packed, int blank, long[] states, int[] blanks) {
+        int count = 0;
+        int base = blank * 4;
+        for (int direction = 0; direction < 4; direction++) {
+            int target = targets[base + direction];
+            if (target < 0) continue;
+            long tile = (packed >>> (target * 4)) & 0xF;
+            states[count] = (packed & ~(0xFL << (target * 4))) | (tile << (blank * 4));
+            blanks[count] = target;
+            count++;
+        }
+        return count;
+    }
+
+    private static final class Two extends BoardKernel {
+        Two() {
+            super(2);
+        }
+
+        @Override
+        int manhattan(long packed) {
+            int value = 0;
+            for (int index = 0; index < 4; index++) {
+                value += distances[(int) (packed >>> (index * 4) & 0xF) * 4 + index];
+            }
+            return value;
+        }
+    }
+
+    private static final class Three extends BoardKernel {
+        Three() {
+            super(3);
+        }
+
+        @Override
+        int manhattan(long packed) {
+            int value = 0;
+            for (int index = 0; index < 9; index++) {
+                value += distances[(int) (packed >>> (index * 4) & 0xF) * 9 + index];
+            }
+            return value;
+        }
+    }
+
+    private static final class Four extends BoardKernel {
+        Four() {
+            super(4);
+        }
+
+        @Override
+        int manhattan(long packed) {
+            int value = 0;
+            for (int index = 0; index < 16; index++) {
+                value += distances[(int) (packed >>> (index * 4) & 0xF) * 16 + index];
+            }
+            return value;
+        }
+    }
+}
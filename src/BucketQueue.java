@@ -0,0 +1,73 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// Priority queue for small integer priorities: one LIFO bucket per (f, h) pair. delMin() returns an item of
+// the lowest f and, among those, of the lowest h, the one inserted last first. Both insert and delMin are O(1)
+// apart from skipping empty buckets, and items of the same bucket sit next to each other in one array.
+class BucketQueue<Item> {
+    private Object[][][] buckets = new Object[64][][]; // buckets[f][h], the items of each LIFO bucket
+    private int[][] sizes = new int[64][]; // sizes[f][h], number of items in each bucket
+    private int[] countAtF = new int[64]; // number of items of each f
+    private int minF; // no item has an f below it
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // lowest f of the items in the queue
+    int minPriority() {
+        if (isEmpty()) throw new NoSuchElementException("Priority queue underflow");
+        while (countAtF[minF] == 0) minF++;
+        return minF;
+    }
+
+    void insert(Item item, int f, int h) {
+        if (f < 0 || h < 0 || h > f) throw new IllegalArgumentException("f = " + f + ", h = " + h);
+        if (f >= countAtF.length) growF(f);
+        if (sizes[f] == null || h >= sizes[f].length) growH(f, h);
+        Object[] bucket = buckets[f][h];
+        int bucketSize = sizes[f][h];
+        if (bucket == null) bucket = buckets[f][h] = new Object[8];
+        else if (bucketSize == bucket.length) bucket = buckets[f][h] = Arrays.copyOf(bucket, bucketSize * 2);
+        bucket[bucketSize] = item;
+        sizes[f][h] = bucketSize + 1;
+        countAtF[f]++;
+        if (f < minF) minF = f;
+        size++;
+    }
+
+    // remove and return an item of lowest f, lowest h among them
+    @SuppressWarnings("unchecked")
+    Item delMin() {
+        int f = minPriority();
+        int[] sizesAtF = sizes[f];
+        int h = 0;
+        while (sizesAtF[h] == 0) h++;
+        int last = --sizesAtF[h];
+        Object[] bucket = buckets[f][h];
+        Item item = (Item) bucket[last];
+        bucket[last] = null; // avoid loitering
+        countAtF[f]--;
+        size--;
+        return item;
+    }
+
+    private void growF(int f) {
+        int capacity = Math.max(f + 1, countAtF.length * 2);
+        buckets = Arrays.copyOf(buckets, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        countAtF = Arrays.copyOf(countAtF, capacity);
+    }
+
+    private void growH(int f, int h) {
+        // h never exceeds f so f + 1 buckets are always enough
+        int capacity = f + 1;
+        buckets[f] = buckets[f] == null ? new Object[capacity][] : Arrays.copyOf(buckets[f], capacity);
+        sizes[f] = sizes[f] == null ? new int[capacity] : Arrays.copyOf(sizes[f], capacity);
+    }
+}
@@ -0,0 +1,33 @@
+// thrown by a solver that went over its SearchBudget, with what the search did until then
+public class BudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final SolveStatus status;
+    private SearchStatistics statistics;
+
+    public BudgetExceededException(String message) {
+        this(SolveStatus.BUDGET_EXCEEDED, message);
+    }
+
+    public BudgetExceededException(SolveStatus status, String message) {
+        super(message);
+        if (status == SolveStatus.SOLVED || status == SolveStatus.UNSOLVABLE) throw new IllegalArgumentException();
+        this.status = status;
+    }
+
+    // TIMED_OUT, BUDGET_EXCEEDED or CANCELLED
+    public SolveStatus status() {
+        return status;
+    }
+
+    // what the search did before it stopped, null when the solver did not say
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    // attach what the search did, a solver made of several searches replaces them with its totals
+    BudgetExceededException withStatistics(SearchStatistics statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+}
@@ -0,0 +1,13 @@
+// Lets another thread ask a running search to stop. The search polls it together with its deadline (see
+// SearchBudget) so it stops within about a thousand expansions of cancel().
+public final class CancellationToken {
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
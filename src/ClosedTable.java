@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+// Best known number of moves for every board reached by a search, keyed by the packed board encoding,
+// and optionally the board it was reached from. Open addressing with linear probing over parallel
+// primitive arrays so nothing is boxed: the key 0 marks an empty slot, no valid board packs to 0 as its
+// tiles are all distinct.
+class ClosedTable {
+    private static final long EMPTY = 0L;
+    private static final int NOT_FOUND = -1;
+
+    private long[] keys;
+    private int[] values;
+    private long[] parents; // null unless the table was built to remember parents
+    private int size;
+    private int mask;
+
+    ClosedTable() {
+        this(1 << 12);
+    }
+
+    ClosedTable(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    ClosedTable(int expectedSize, boolean withParents) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        if (withParents) parents = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // number of boards in the table
+    int size() {
+        return size;
+    }
+
+    // the moves recorded for key or -1 when the board has never been seen
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) return values[slot];
+            if (k == EMPTY) return NOT_FOUND;
+        }
+    }
+
+    // the board key was reached from, 0 for the initial board or a board never seen
+    long parent(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) return parents[slot];
+            if (k == EMPTY) return EMPTY;
+        }
+    }
+
+    // record moves for key, replacing any previous value
+    void put(long key, int moves) {
+        put(key, moves, EMPTY);
+    }
+
+    // record moves for key and the board it was reached from, replacing any previous values
+    void put(long key, int moves, long parent) {
+        assert key != EMPTY;
+        int slot = slot(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) slot = (slot + 1) & mask;
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = moves;
+        if (parents != null) parents[slot] = parent;
+        // we keep the load factor under 1/2 so probe sequences stay short
+        if (size * 2 > keys.length) grow();
+    }
+
+    // remove every board while keeping the allocated arrays
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        return (int) mix(key) & mask;
+    }
+
+    // the finalizer of MurmurHash3, neighbouring boards only differ by a couple of nibbles
+    static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        long[] oldParents = parents;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        if (oldParents != null) parents = new long[oldParents.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY) continue;
+            int slot = slot(key);
+            while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+            if (oldParents != null) parents[slot] = oldParents[i];
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// The exact distance to the goal of every 3x3 board. Only 9!/2 = 181440 boards are solvable so a
+// breadth first search backwards from the goal visits them all in a fraction of a second, the distances
+// are kept in one byte per permutation of the 9 squares indexed by its Lehmer code (rank below), the
+// unsolvable half holds UNREACHABLE. A shortest solution is found by stepping to any neighbor one move
+// closer until the goal.
+//
+// The table Solver uses is generated on first use, or mapped from the file named by the system property
+// puzzle.table3x3 when it is set. File layout, big-endian: int MAGIC then the 9! distances.
+//
+// % java EightPuzzleTable table3x3.bin
+// % java -Dpuzzle.table3x3=table3x3.bin PuzzleChecker SampleData/puzzle3x3-*.txt
+public final class EightPuzzleTable {
+    static final int MAGIC = 0x38505431; // "8PT1"
+    private static final int SIZE = 9;
+    private static final int STATES = 362880; // 9!
+    private static final int UNREACHABLE = -1;
+    private static final int[] FACTORIALS = {40320, 5040, 720, 120, 24, 6, 2, 1, 1};
+
+    private final ByteBuffer distances;
+
+    private EightPuzzleTable(ByteBuffer distances) {
+        if (distances.capacity() != STATES) throw new IllegalArgumentException("a table has " + STATES + " entries");
+        this.distances = distances;
+    }
+
+    // the table used by Solver for every 3x3 board
+    static EightPuzzleTable shared() {
+        return Holder.TABLE;
+    }
+
+    // loaded once, on the first 3x3 board
+    private static final class Holder {
+        static final EightPuzzleTable TABLE = open(System.getProperty("puzzle.table3x3"));
+
+        private static EightPuzzleTable open(String file) {
+            if (file == null) return generate();
+            try {
+                return load(file);
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot load the 3x3 table " + file, e);
+            }
+        }
+    }
+
+    // breadth first search from the goal over the ranks of the boards
+    public static EightPuzzleTable generate() {
+        byte[] table = new byte[STATES];
+        Arrays.fill(table, (byte) UNREACHABLE);
+        int[] queue = new int[STATES / 2];
+        int[] tiles = new int[SIZE];
+        int head = 0;
+        int tail = 0;
+        int goal = rank(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 0});
+        table[goal] = 0;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int state = queue[head++];
+            int distance = table[state];
+            unrank(state, tiles);
+            int blank = blankOf(tiles);
+            for (int direction = MutableBoard.UP; direction <= MutableBoard.RIGHT; direction++) {
+                int target = MutableBoard.target(blank / 3, blank % 3, 3, direction);
+                if (target < 0) continue;
+                tiles[blank] = tiles[target];
+                tiles[target] = 0;
+                int next = rank(tiles);
+                tiles[target] = tiles[blank];
+                tiles[blank] = 0;
+                if (table[next] != UNREACHABLE) continue;
+                table[next] = (byte) (distance + 1);
+                queue[tail++] = next;
+            }
+        }
+        return new EightPuzzleTable(ByteBuffer.wrap(table));
+    }
+
+    // map the table stored in file
+    public static EightPuzzleTable load(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            if (channel.size() != 4 + STATES) throw new IOException(file + " is not a 3x3 table");
+            // the mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) throw new IOException(file + " is not a 3x3 table");
+            return new EightPuzzleTable(buffer.slice());
+        }
+    }
+
+    public void save(String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            for (int state = 0; state < STATES; state++) out.writeByte(distances.get(state));
+        }
+    }
+
+    // fewest moves from board to the goal, -1 when board is not solvable
+    public int distance(TileGrid board) {
+        if (board.dimension() != 3) throw new IllegalArgumentException("not a 3x3 board");
+        int[] tiles = new int[SIZE];
+        for (int index = 0; index < SIZE; index++) tiles[index] = board.tileAt(index);
+        return distance(tiles);
+    }
+
+    // same as above for the board whose squares hold tiles, 0 for the blank square
+    int distance(int[] tiles) {
+        return distances.get(rank(tiles));
+    }
+
+    // the moves of a shortest solution of board, null when board is not solvable
+    public MoveSequence solution(Board board) {
+        int distance = distance(board);
+        if (distance < 0) return null;
+        int[] directions = new int[distance];
+        for (int move = 0; move < directions.length; move++) {
+            // some neighbor is one move closer to the goal
+            Board next = null;
+            for (int direction = MutableBoard.UP; next == null; direction++) {
+                Board neighbor = board.slide(direction);
+                if (neighbor != null && distance(neighbor) == distance - move - 1) {
+                    next = neighbor;
+                    directions[move] = direction;
+                }
+            }
+            board = next;
+        }
+        return MoveSequence.of(directions, directions.length);
+    }
+
+    // Lehmer code of the permutation tiles of 0..8, from 0 to 9! - 1
+    static int rank(int[] tiles) {
+        int rank = 0;
+        for (int i = 0; i < SIZE; i++) {
+            int smaller = 0;
+            for (int j = i + 1; j < SIZE; j++) {
+                if (tiles[j] < tiles[i]) smaller++;
+            }
+            rank += smaller * FACTORIALS[i];
+        }
+        return rank;
+    }
+
+    // the permutation of Lehmer code rank into tiles
+    static void unrank(int rank, int[] tiles) {
+        int used = 0; // bit set of the values taken by the first squares
+        for (int i = 0; i < SIZE; i++) {
+            int smaller = rank / FACTORIALS[i];
+            rank %= FACTORIALS[i];
+            // the (smaller + 1)th value not used yet
+            int value = 0;
+            while (true) {
+                if ((used & (1 << value)) == 0 && smaller-- == 0) break;
+                value++;
+            }
+            used |= 1 << value;
+            tiles[i] = value;
+        }
+    }
+
+    private static int blankOf(int[] tiles) {
+        for (int index = 0; index < SIZE; index++) {
+            if (tiles[index] == 0) return index;
+        }
+        throw new IllegalArgumentException("no blank square");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: java EightPuzzleTable file");
+            return;
+        }
+        long start = System.nanoTime();
+        EightPuzzleTable table = generate();
+        long elapsed = System.nanoTime() - start;
+        table.save(args[0]);
+
+        // number of boards at each distance, 181440 in all and 31 moves at most
+        int[] counts = new int[32];
+        int solvable = 0;
+        for (int state = 0; state < STATES; state++) {
+            int distance = table.distances.get(state);
+            if (distance == UNREACHABLE) continue;
+            counts[distance]++;
+            solvable++;
+        }
+        StdOut.printf("%d boards in %.3f s%n", solvable, elapsed / 1e9);
+        for (int distance = 0; distance < counts.length; distance++) {
+            if (counts[distance] > 0) StdOut.println(distance + " moves: " + counts[distance]);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// External A* (Edelkamp, Jabbar and Schroedl 2004): the search graph lives on disk, only a run buffer and
+// a few I/O buffers are in memory, so the number of boards is bounded by the disk instead of the heap.
+//
+// The boards are packed longs kept in one file per bucket (g, h). Buckets are expanded in order of
+// f = g + h, then of g. A board of (g, h) has its neighbours in (g + 1, h - 1), (g + 1, h) or (g + 1, h + 1),
+// whatever the heuristic as long as it is consistent, so a bucket is complete when its turn comes: its file
+// is then sorted by runs of at most runLongs boards, the runs are merged and the duplicates dropped, also
+// the boards already in (g - 1, h) and (g - 2, h) since a board reached again is reached from there
+// (delayed duplicate detection). The sorted bucket is then read sequentially and each board expanded into
+// the files of the next layer. The first bucket holding the goal gives a shortest solution, its moves are
+// found back layer by layer by looking the neighbours of each board up in the sorted buckets of the layer
+// before with a binary search.
+// Only boards that fit in a long (up to 4x4) are supported, the files are deleted when the search ends.
+public class ExternalSolver implements PuzzleSolver {
+    public static final int DEFAULT_RUN_LONGS = 1 << 22; // 32 MB of boards sorted in memory at a time
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Board initial;
+    private final Heuristic heuristic;
+    private final SearchBudget budget;
+    private final SearchStatistics statistics;
+    private final boolean isSolvable;
+    private final int dimension;
+    private final PackedBoards.Grid grid;
+    private final long[] neighborStates = new long[4];
+    private final int[] neighborBlanks = new int[4];
+    private Path directory;
+    private long[] run;
+    private long pending; // boards written to buckets not expanded yet, duplicates included
+    private long bytesWritten;
+    private int movesValue = -1;
+    private MoveSequence moveSequence;
+
+    // find a solution to the initial board with boards spilled to the temporary directory
+    public ExternalSolver(Board given) {
+        this(given, StandardHeuristic.MANHATTAN, SearchBudget.UNLIMITED);
+    }
+
+    // same as above, guided by heuristic, throws BudgetExceededException when the search goes over budget
+    public ExternalSolver(Board given, Heuristic heuristic, SearchBudget budget) {
+        this(given, heuristic, budget, null, 1, Paths.get(System.getProperty("java.io.tmpdir")), DEFAULT_RUN_LONGS);
+    }
+
+    // same as above, listener (may be null) is told about the search every interval expansions, the buckets
+    // are written to a new directory in parent and at most runLongs boards are sorted in memory at once
+    public ExternalSolver(Board given, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                          int interval, Path parent, int runLongs) {
+        if (null == given || null == heuristic || null == budget || null == parent) {
+            throw new IllegalArgumentException();
+        }
+        if (!given.isPacked()) throw new IllegalArgumentException("boards larger than 4x4 are not supported");
+        if (runLongs < 1) throw new IllegalArgumentException("runLongs must be positive");
+        statistics = new SearchStatistics(listener, interval);
+        initial = given;
+        this.heuristic = heuristic;
+        this.budget = budget;
+        dimension = initial.dimension();
+        grid = new PackedBoards.Grid(dimension);
+        isSolvable = initial.isSolvable();
+        if (!isSolvable) {
+            statistics.finish();
+            return;
+        }
+
+        run = new long[runLongs];
+        try {
+            directory = Files.createTempDirectory(parent, "puzzle-external");
+            try {
+                search();
+            } finally {
+                deleteDirectory();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            run = null;
+            statistics.finish();
+        }
+    }
+
+    private void search() throws IOException {
+        long start = initial.packed();
+        long goal = PackedBoards.goal(dimension);
+        int h0 = heuristic.estimate(initial);
+        try (LongWriter writer = new LongWriter(unsorted(0, h0))) {
+            writer.write(start);
+        }
+        pending = 1;
+
+        for (int f = h0; ; f++) {
+            boolean any = false;
+            for (int g = 0; g <= f; g++) {
+                int h = f - g;
+                if (!Files.exists(unsorted(g, h))) continue;
+                any = true;
+                if (!sortBucket(g, h)) continue;
+                // only the goal has no move left, with an admissible heuristic it is in a bucket of h = 0
+                if (h == 0 && contains(sorted(g, h), goal)) {
+                    movesValue = g;
+                    recordSolution(goal, g);
+                    return;
+                }
+                expandBucket(g, h);
+            }
+            // no bucket of f or more is left to expand
+            if (!any && pending == 0) throw new IllegalStateException("no solution to a solvable board");
+        }
+    }
+
+    // sort the unsorted file of (g, h) into its sorted file without duplicates, nor the boards of (g - 1, h)
+    // and (g - 2, h), returns false when no board is left
+    private boolean sortBucket(int g, int h) throws IOException {
+        Path input = unsorted(g, h);
+        List<Path> runs = new ArrayList<>();
+        long read = 0;
+        try (LongReader reader = new LongReader(input)) {
+            while (reader.advance()) {
+                int count = 0;
+                do {
+                    run[count++] = reader.current;
+                } while (count < run.length && reader.advance());
+                read += count;
+                Arrays.sort(run, 0, count);
+                Path runFile = directory.resolve("run-" + runs.size());
+                try (LongWriter writer = new LongWriter(runFile)) {
+                    for (int k = 0; k < count; k++) {
+                        if (k == 0 || run[k] != run[k - 1]) writer.write(run[k]);
+                    }
+                }
+                runs.add(runFile);
+            }
+        }
+        Files.delete(input);
+        pending -= read;
+
+        long kept = merge(runs, sorted(g, h), g >= 1 ? sorted(g - 1, h) : null, g >= 2 ? sorted(g - 2, h) : null);
+        for (Path runFile : runs) Files.delete(runFile);
+        statistics.duplicatesPruned += read - kept;
+        if (kept == 0) Files.delete(sorted(g, h));
+        return kept > 0;
+    }
+
+    // merge the sorted runs into output once each, without the boards of the sorted files minus1 and minus2
+    // (either may be null or missing), returns the number of boards written
+    private long merge(List<Path> runs, Path output, Path minus1, Path minus2) throws IOException {
+        PriorityQueue<LongReader> heads = new PriorityQueue<>((a, b) -> Long.compare(a.current, b.current));
+        LongReader previous1 = null;
+        LongReader previous2 = null;
+        try {
+            for (Path runFile : runs) {
+                LongReader reader = new LongReader(runFile);
+                if (reader.advance()) heads.add(reader);
+                else reader.close();
+            }
+            previous1 = minus1 != null && Files.exists(minus1) ? new LongReader(minus1) : null;
+            previous2 = minus2 != null && Files.exists(minus2) ? new LongReader(minus2) : null;
+            boolean more1 = previous1 != null && previous1.advance();
+            boolean more2 = previous2 != null && previous2.advance();
+
+            long kept = 0;
+            boolean first = true;
+            long last = 0;
+            try (LongWriter writer = new LongWriter(output)) {
+                while (!heads.isEmpty()) {
+                    LongReader head = heads.poll();
+                    long state = head.current;
+                    if (head.advance()) heads.add(head);
+                    else head.close();
+                    if (!first && state == last) continue;
+                    first = false;
+                    last = state;
+                    while (more1 && previous1.current < state) more1 = previous1.advance();
+                    while (more2 && previous2.current < state) more2 = previous2.advance();
+                    if (more1 && previous1.current == state || more2 && previous2.current == state) continue;
+                    writer.write(state);
+                    kept++;
+                }
+            }
+            return kept;
+        } finally {
+            for (LongReader reader : heads) reader.close();
+            if (previous1 != null) previous1.close();
+            if (previous2 != null) previous2.close();
+        }
+    }
+
+    // expand every board of the sorted bucket (g, h) into the unsorted files of layer g + 1
+    private void expandBucket(int g, int h) throws IOException {
+        LongWriter[] writers = new LongWriter[3]; // h - 1, h and h + 1
+        try (LongReader reader = new LongReader(sorted(g, h))) {
+            while (reader.advance()) {
+                long state = reader.current;
+                statistics.expanded((int) Math.min(Integer.MAX_VALUE, pending), g + h, g);
+                budget.check(statistics, statistics.expanded, pending);
+                int blank = PackedBoards.blankIndex(state, dimension);
+                int count = PackedBoards.neighbors(state, blank, dimension, neighborStates, neighborBlanks);
+                for (int k = 0; k < count; k++) {
+                    long neighbor = neighborStates[k];
+                    int from = neighborBlanks[k];
+                    int next = heuristic.update(grid.set(neighbor), h, PackedBoards.tileAt(state, from), from, blank);
+                    int slot = next - h + 1;
+                    if (slot < 0 || slot > 2) throw new IllegalStateException("the heuristic is not consistent");
+                    if (writers[slot] == null) writers[slot] = new LongWriter(unsorted(g + 1, next));
+                    writers[slot].write(neighbor);
+                    statistics.generated++;
+                    pending++;
+                }
+            }
+        } finally {
+            for (LongWriter writer : writers) {
+                if (writer != null) writer.close();
+            }
+        }
+    }
+
+    // walk back from the goal at layer moves, each board has a neighbour in a sorted bucket of the layer before
+    private void recordSolution(long goal, int moves) throws IOException {
+        int[] directions = new int[moves];
+        long state = goal;
+        for (int layer = moves - 1; layer >= 0; layer--) {
+            int blank = PackedBoards.blankIndex(state, dimension);
+            int count = PackedBoards.neighbors(state, blank, dimension, neighborStates, neighborBlanks);
+            long previous = 0L;
+            for (int k = 0; k < count && previous == 0L; k++) {
+                long neighbor = neighborStates[k];
+                if (contains(sorted(layer, heuristic.estimate(grid.set(neighbor))), neighbor)) previous = neighbor;
+            }
+            if (previous == 0L) throw new IllegalStateException("no board of layer " + layer + " leads to the goal");
+            directions[layer] = MoveSequence.direction(PackedBoards.blankIndex(previous, dimension), blank, dimension);
+            state = previous;
+        }
+        moveSequence = MoveSequence.of(directions, moves);
+    }
+
+    // binary search of state in a sorted bucket file, false when the file does not exist
+    private static boolean contains(Path file, long state) throws IOException {
+        if (!Files.exists(file)) return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            long lo = 0;
+            long hi = channel.size() / Long.BYTES - 1;
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, mid * Long.BYTES + buffer.position()) < 0) {
+                        throw new IOException(file + " is truncated");
+                    }
+                }
+                long value = buffer.getLong(0);
+                if (value < state) lo = mid + 1;
+                else if (value > state) hi = mid - 1;
+                else return true;
+            }
+            return false;
+        }
+    }
+
+    private Path unsorted(int g, int h) {
+        return directory.resolve(g + "-" + h + ".open");
+    }
+
+    private Path sorted(int g, int h) {
+        return directory.resolve(g + "-" + h + ".sorted");
+    }
+
+    private void deleteDirectory() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    // bytes written to the bucket and run files by the search
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    // what the search did to find the solution
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    // is the initial board solvable?
+    public boolean isSolvable() {
+        return isSolvable;
+    }
+
+    // min number of moves to solve initial board
+    public int moves() {
+        return movesValue;
+    }
+
+    // sequence of boards in a shortest solution
+    public Iterable<Board> solution() {
+        if (!isSolvable()) return null;
+        return moveSequence.boards(initial);
+    }
+
+    // the moves of the blank square in a shortest solution
+    public MoveSequence moveSequence() {
+        return moveSequence;
+    }
+
+    // sequential reads of the longs of a file through one buffer
+    private static final class LongReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        long current;
+
+        LongReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        // move to the next long, false at the end of the file
+        boolean advance() throws IOException {
+            if (buffer.remaining() < Long.BYTES) {
+                buffer.compact();
+                while (buffer.position() < Long.BYTES) {
+                    if (channel.read(buffer) < 0) {
+                        buffer.flip();
+                        return false;
+                    }
+                }
+                buffer.flip();
+            }
+            current = buffer.getLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // sequential writes of longs appended to a file through one buffer
+    private final class LongWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+
+        LongWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        void write(long value) throws IOException {
+            if (!buffer.hasRemaining()) flush();
+            buffer.putLong(value);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            bytesWritten += buffer.remaining();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // solve the files with a small run buffer to see the search go to disk
+    // % java ExternalSolver -dir=/tmp -run=65536 SampleData/puzzle4x4-4*.txt
+    public static void main(String[] args) {
+        Path parent = Paths.get(System.getProperty("java.io.tmpdir"));
+        int runLongs = DEFAULT_RUN_LONGS;
+        List<String> filenames = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("-dir=")) parent = Paths.get(arg.substring("-dir=".length()));
+            else if (arg.startsWith("-run=")) runLongs = Integer.parseInt(arg.substring("-run=".length()));
+            else filenames.add(arg);
+        }
+        for (String filename : filenames) {
+            Board initial = PuzzleChecker.readBoard(filename);
+            ExternalSolver solver = new ExternalSolver(initial, StandardHeuristic.MANHATTAN, SearchBudget.UNLIMITED,
+                    null, 1, parent, runLongs);
+            StdOut.printf("%s takes %d moves, %s, %.1f MB written%n", filename, solver.moves(), solver.statistics(),
+                    solver.bytesWritten() / 1e6);
+        }
+    }
+}
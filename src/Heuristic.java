@@ -0,0 +1,12 @@
+// an admissible estimate of the number of moves left to reach the goal board
+public interface Heuristic {
+
+    // the estimate for board, computed from scratch
+    int estimate(TileGrid board);
+
+    // the estimate for board right after tile slid from index from into the blank square at index to,
+    // value being the estimate before the slide. Implementations override it to avoid a full rescan.
+    default int update(TileGrid board, int value, int tile, int from, int to) {
+        return estimate(board);
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+// Iterative deepening A*: depth first searches bounded by f = moves + manhattan, the bound growing to the
+// smallest f that exceeded it until the goal is reached. Only the current path is kept, as the directions
+// taken on a single MutableBoard, so memory is linear in the depth of the solution.
+public class IdaSolver implements PuzzleSolver {
+    private static final int FOUND = -1;
+
+    private final Board initial;
+    private final Heuristic heuristic;
+    private final SearchBudget budget;
+    private final SearchStatistics statistics;
+    private final boolean isSolvable;
+    private int movesValue = -1;
+    private int[] path = new int[64]; // directions of the blank square from the initial board
+    private MoveSequence moveSequence;
+
+    // find a solution to the initial board (using the IDA* algorithm)
+    public IdaSolver(Board given) {
+        this(given, StandardHeuristic.MANHATTAN);
+    }
+
+    // find a solution to the initial board with the IDA* algorithm guided by heuristic
+    public IdaSolver(Board given, Heuristic heuristic) {
+        this(given, heuristic, SearchBudget.UNLIMITED);
+    }
+
+    // find a solution to the initial board with the IDA* algorithm guided by heuristic,
+    // throws BudgetExceededException when the search goes over budget
+    public IdaSolver(Board given, Heuristic heuristic, SearchBudget budget) {
+        this(given, heuristic, budget, null, 1);
+    }
+
+    // same as above, listener (may be null) is told about the search every interval expansions
+    public IdaSolver(Board given, Heuristic heuristic, SearchBudget budget, SearchListener listener, int interval) {
+        if (null == given || null == heuristic || null == budget) throw new IllegalArgumentException();
+        statistics = new SearchStatistics(listener, interval);
+        initial = given;
+        this.heuristic = heuristic;
+        this.budget = budget;
+        isSolvable = initial.isSolvable();
+        if (!isSolvable) {
+            statistics.finish();
+            return;
+        }
+
+        MutableBoard board = new MutableBoard(initial);
+        int h = heuristic.estimate(board);
+        int bound = h;
+        while (true) {
+            int next = search(board, 0, h, bound, -1);
+            if (next == FOUND) break;
+            bound = next;
+        }
+        moveSequence = MoveSequence.of(path, movesValue);
+        path = null;
+        statistics.finish();
+    }
+
+    // depth first search below bound, returns FOUND or the smallest f that went over the bound
+    private int search(MutableBoard board, int moves, int h, int bound, int previousDirection) {
+        // the nodes visited by all the iterations are counted, only the path is held in memory
+        budget.check(statistics, ++statistics.generated, 0);
+        int f = moves + h;
+        if (f > bound) return f;
+        if (board.isGoal()) {
+            movesValue = moves;
+            return FOUND;
+        }
+        statistics.expanded(moves, bound, moves);
+        if (moves == path.length) path = Arrays.copyOf(path, path.length * 2);
+
+        int min = Integer.MAX_VALUE;
+        for (int direction = MutableBoard.UP; direction <= MutableBoard.RIGHT; direction++) {
+            // critical optimisation do not go straight back to the previous board
+            if (previousDirection >= 0 && direction == MutableBoard.opposite(previousDirection)) {
+                statistics.duplicatesPruned++;
+                continue;
+            }
+            if (!board.canSlide(direction)) continue;
+
+            int to = board.blank();
+            board.slide(direction);
+            int from = board.blank();
+            int next = heuristic.update(board, h, board.tileAt(to), from, to);
+            path[moves] = direction;
+            int t = search(board, moves + 1, next, bound, direction);
+            board.slide(MutableBoard.opposite(direction)); // undo
+            if (t == FOUND) return FOUND;
+            if (t < min) min = t;
+        }
+        return min;
+    }
+
+    // what the search did to find the solution
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    // is the initial board solvable?
+    public boolean isSolvable() {
+        return isSolvable;
+    }
+
+    // min number of moves to solve initial board
+    public int moves() {
+        return movesValue;
+    }
+
+    // sequence of boards in a shortest solution, replayed from the directions of the path
+    public Iterable<Board> solution() {
+        if (!isSolvable()) return null;
+        return moveSequence.boards(initial);
+    }
+
+    // the moves of the blank square in a shortest solution
+    public MoveSequence moveSequence() {
+        return moveSequence;
+    }
+}
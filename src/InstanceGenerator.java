@@ -0,0 +1,160 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Seeded random boards of any dimension: uniformly random solvable boards, or random walks of a given number
+// of moves away from the goal (the optimal solution takes at most that many moves, and the same parity).
+// Board k of a generator only depends on its seed and on k, so the boards are built in parallel and a
+// sweep can ask for the same boards again. They are written as text files, one per board in the format of
+// SampleData, or as one PuzzleArchive.
+//
+// % java InstanceGenerator -n=4 -depth=40 -count=1000 -seed=7 walks.pzb
+// % java InstanceGenerator -n=3 -count=100 random/
+class InstanceGenerator {
+    static final int UNIFORM = -1; // depth of the uniformly random boards
+
+    private final int dimension;
+    private final int depth;
+    private final long seed;
+
+    // boards of dimension, random walks of depth moves or uniform when depth is UNIFORM
+    InstanceGenerator(int dimension, int depth, long seed) {
+        if (dimension < 2 || dimension >= 128) throw new IllegalArgumentException("dimension must be in [2, 128)");
+        if (depth < 0 && depth != UNIFORM) throw new IllegalArgumentException("depth must not be negative");
+        this.dimension = dimension;
+        this.depth = depth;
+        this.seed = seed;
+    }
+
+    // board k of this generator
+    Board board(long k) {
+        Random random = new Random(mix(seed + k * 0x9E3779B97F4A7C15L));
+        return depth == UNIFORM ? uniform(dimension, random) : walk(dimension, depth, random);
+    }
+
+    // boards 0 to count - 1, built in parallel but in order
+    Stream<Board> boards(long count) {
+        return LongStream.range(0, count).parallel().mapToObj(this::board);
+    }
+
+    // a uniformly random solvable board: a random permutation, two tiles swapped when its parity is wrong
+    static Board uniform(int n, Random random) {
+        int size = n * n;
+        int[] permutation = new int[size];
+        for (int index = 0; index < size; index++) permutation[index] = index;
+        for (int index = size - 1; index > 0; index--) {
+            int other = random.nextInt(index + 1);
+            int tile = permutation[index];
+            permutation[index] = permutation[other];
+            permutation[other] = tile;
+        }
+        int[][] tiles = new int[n][n];
+        for (int index = 0; index < size; index++) tiles[index / n][index % n] = permutation[index];
+        Board board = new Board(tiles);
+        if (board.isSolvable()) return board;
+        // the two first squares that are not blank
+        int first = permutation[0] == 0 ? 1 : 0;
+        int second = permutation[first + 1] == 0 ? first + 2 : first + 1;
+        tiles[first / n][first % n] = permutation[second];
+        tiles[second / n][second % n] = permutation[first];
+        return new Board(tiles);
+    }
+
+    // the board the blank leaves after depth random moves from the goal, never undoing the move before
+    static Board walk(int n, int depth, Random random) {
+        int size = n * n;
+        int[] tiles = new int[size];
+        for (int index = 0; index < size - 1; index++) tiles[index] = index + 1;
+        int blank = size - 1;
+        int previous = -1; // direction of the last move
+        int[] targets = new int[4];
+        int[] directions = new int[4];
+        for (int move = 0; move < depth; move++) {
+            int count = 0;
+            for (int direction = MutableBoard.UP; direction <= MutableBoard.RIGHT; direction++) {
+                // UP and DOWN, LEFT and RIGHT only differ by their lowest bit
+                if (previous >= 0 && direction == (previous ^ 1)) continue;
+                int target = MutableBoard.target(blank / n, blank % n, n, direction);
+                if (target < 0) continue;
+                targets[count] = target;
+                directions[count++] = direction;
+            }
+            int pick = random.nextInt(count);
+            tiles[blank] = tiles[targets[pick]];
+            tiles[targets[pick]] = 0;
+            blank = targets[pick];
+            previous = directions[pick];
+        }
+        int[][] grid = new int[n][n];
+        for (int index = 0; index < size; index++) grid[index / n][index % n] = tiles[index];
+        return new Board(grid);
+    }
+
+    // SplitMix64 finalizer, so that neighbouring boards get unrelated seeds
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // write count boards to the archive file
+    void writeArchive(String file, long count) throws IOException {
+        try (PuzzleArchive.Writer writer = new PuzzleArchive.Writer(file, dimension)) {
+            boards(count).forEachOrdered(board -> {
+                try {
+                    writer.add(board);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // write count boards as text files named after the generator in directory, in parallel
+    void writeText(String directory, long count) throws IOException {
+        Path folder = Files.createDirectories(Paths.get(directory));
+        String name = "random" + dimension + "x" + dimension + (depth == UNIFORM ? "" : "-d" + depth) + "-s" + seed;
+        String digits = "%0" + Math.max(1, String.valueOf(count - 1).length()) + "d";
+        LongStream.range(0, count).parallel().forEach(k -> {
+            Path file = folder.resolve(name + "-" + String.format(digits, k) + ".txt");
+            try {
+                Files.write(file, board(k).toString().getBytes(StandardCharsets.US_ASCII));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        int dimension = 3;
+        int depth = UNIFORM;
+        long count = 10;
+        long seed = 1;
+        String out = null;
+        for (String arg : args) {
+            if (arg.startsWith("-n=")) dimension = Integer.parseInt(arg.substring("-n=".length()));
+            else if (arg.startsWith("-depth=")) depth = Integer.parseInt(arg.substring("-depth=".length()));
+            else if (arg.startsWith("-count=")) count = Long.parseLong(arg.substring("-count=".length()));
+            else if (arg.startsWith("-seed=")) seed = Long.parseLong(arg.substring("-seed=".length()));
+            else out = arg;
+        }
+        if (out == null) {
+            System.err.println("usage: java InstanceGenerator [-n=3] [-depth=moves] [-count=10] [-seed=1] "
+                    + "archive.pzb | directory");
+            return;
+        }
+        InstanceGenerator generator = new InstanceGenerator(dimension, depth, seed);
+        long start = System.nanoTime();
+        if (out.endsWith(PuzzleChecker.ARCHIVE)) generator.writeArchive(out, count);
+        else generator.writeText(out, count);
+        StdOut.printf("%d boards written to %s in %.3f s%n", count, out, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// The BucketQueue of int items, for the searches that refer to their nodes by index: no boxing and no
+// object per item, the buckets are plain int arrays that only grow.
+class IntBucketQueue {
+    private int[][][] buckets = new int[64][][]; // buckets[f][h], the items of each LIFO bucket
+    private int[][] sizes = new int[64][]; // sizes[f][h], number of items in each bucket
+    private int[] countAtF = new int[64]; // number of items of each f
+    private int minF; // no item has an f below it
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // lowest f of the items in the queue
+    int minPriority() {
+        if (isEmpty()) throw new NoSuchElementException("Priority queue underflow");
+        while (countAtF[minF] == 0) minF++;
+        return minF;
+    }
+
+    void insert(int item, int f, int h) {
+        if (f < 0 || h < 0 || h > f) throw new IllegalArgumentException("f = " + f + ", h = " + h);
+        if (f >= countAtF.length) growF(f);
+        if (sizes[f] == null || h >= sizes[f].length) growH(f, h);
+        int[] bucket = buckets[f][h];
+        int bucketSize = sizes[f][h];
+        if (bucket == null) bucket = buckets[f][h] = new int[16];
+        else if (bucketSize == bucket.length) bucket = buckets[f][h] = Arrays.copyOf(bucket, bucketSize * 2);
+        bucket[bucketSize] = item;
+        sizes[f][h] = bucketSize + 1;
+        countAtF[f]++;
+        if (f < minF) minF = f;
+        size++;
+    }
+
+    // remove and return an item of lowest f, lowest h among them
+    int delMin() {
+        int f = minPriority();
+        int[] sizesAtF = sizes[f];
+        int h = 0;
+        while (sizesAtF[h] == 0) h++;
+        int item = buckets[f][h][--sizesAtF[h]];
+        countAtF[f]--;
+        size--;
+        return item;
+    }
+
+    private void growF(int f) {
+        int capacity = Math.max(f + 1, countAtF.length * 2);
+        buckets = Arrays.copyOf(buckets, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        countAtF = Arrays.copyOf(countAtF, capacity);
+    }
+
+    private void growH(int f, int h) {
+        // h never exceeds f so f + 1 buckets are always enough
+        int capacity = f + 1;
+        buckets[f] = buckets[f] == null ? new int[capacity][] : Arrays.copyOf(buckets[f], capacity);
+        sizes[f] = sizes[f] == null ? new int[capacity] : Arrays.copyOf(sizes[f], capacity);
+    }
+}
@@ -0,0 +1,439 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Solves boards of any dimension in polynomial time and O(n^2) memory, without looking for a short
+// solution: the top row is put in place tile by tile, then the left column, and the same is done on the
+// (n-1)x(n-1) board left until a 3x3 board remains, finished optimally with the EightPuzzleTable.
+//
+// A tile is brought home along a shortest path of free squares, the blank square walking around it by a
+// breadth first search that never crosses the tiles already placed. The last two tiles of a row cannot be
+// placed one after the other without moving the first one again, so the first is put home, the second and
+// the blank square are brought into the 3x3 corner window next to them and a breadth first search over
+// the positions of these three within the window finishes the row. Columns are done the same way, the
+// window being transposed.
+//
+// An optional peephole pass then replays the moves. Whenever the blank square has stayed within a 3x3 box
+// for the last moves (at most WINDOW of them) and ends on a corner of it, only the 9 squares of the box have
+// changed, and the EightPuzzleTable knows the fewest moves between the two boxes once the box is reflected
+// to put that corner bottom right: a shorter way replaces the moves. This also cancels the moves that undo
+// the previous one. rawMoves() tells how many moves there were before the pass.
+//
+// % java LargeBoardSolver 10 20 50
+// % java LargeBoardSolver -raw 10 20 50
+public class LargeBoardSolver implements PuzzleSolver {
+    // most moves the peephole pass looks back over
+    private static final int WINDOW = 64;
+
+    private final Board initial;
+    private final SearchBudget budget;
+    private final SearchStatistics statistics = new SearchStatistics();
+    private final boolean isSolvable;
+    private MoveSequence moveSequence;
+    private int rawMoves = -1;
+
+    // the board being solved, the position of each tile and the squares that must not move anymore
+    private int n;
+    private int[] tiles;
+    private int[] where;
+    private boolean[] locked;
+    private int blank;
+    private int[] directions = new int[1024];
+    private int count;
+
+    // breadth first search buffers, a square is visited when its mark is the current stamp
+    private int[] marks;
+    private int stamp;
+    private int[] previous;
+    private int[] queue;
+
+    // peephole pass buffers: a 3x3 box before and after a run of moves
+    private final int[] box = new int[9];
+    private final int[] boxGoal = new int[9];
+
+    // solve the initial board
+    public LargeBoardSolver(Board given) {
+        this(given, SearchBudget.UNLIMITED);
+    }
+
+    // solve the initial board, throws BudgetExceededException when it takes too long
+    public LargeBoardSolver(Board given, SearchBudget budget) {
+        this(given, budget, true);
+    }
+
+    // same as above, the peephole pass is only done when optimize is true
+    public LargeBoardSolver(Board given, SearchBudget budget, boolean optimize) {
+        if (null == given || null == budget) throw new IllegalArgumentException();
+        initial = given;
+        this.budget = budget;
+        isSolvable = initial.isSolvable();
+        if (!isSolvable) {
+            statistics.finish();
+            return;
+        }
+        if (initial.dimension() == 2) {
+            moveSequence = new Solver(initial).moveSequence();
+            rawMoves = moveSequence.length();
+            statistics.finish();
+            return;
+        }
+
+        n = initial.dimension();
+        int size = n * n;
+        tiles = new int[size];
+        where = new int[size];
+        locked = new boolean[size];
+        marks = new int[size];
+        previous = new int[size];
+        queue = new int[size];
+        for (int index = 0; index < size; index++) {
+            tiles[index] = initial.tileAt(index);
+            where[tiles[index]] = index;
+        }
+        blank = where[0];
+
+        for (int corner = 0; n - corner > 3; corner++) {
+            solveRow(corner);
+            solveColumn(corner);
+        }
+        solveLastThree();
+        rawMoves = count;
+        moveSequence = optimize ? shorten() : MoveSequence.of(directions, count);
+        statistics.finish();
+        // only the moves are kept
+        tiles = where = marks = previous = queue = directions = null;
+        locked = null;
+    }
+
+    // put the tiles of row r in place, the squares left of column r being already done
+    private void solveRow(int r) {
+        for (int j = r; j < n - 2; j++) place(r * n + j);
+        placeLastTwo(r * n + n - 2, r * n + n - 1, window(r, n - 3));
+    }
+
+    // put the tiles of column c in place below row c
+    private void solveColumn(int c) {
+        for (int i = c + 1; i < n - 2; i++) place(i * n + c);
+        placeLastTwo((n - 2) * n + c, (n - 1) * n + c, window(n - 3, c));
+    }
+
+    // the squares of the 3x3 window at (i, j) that are still free
+    private boolean[] window(int i, int j) {
+        boolean[] window = new boolean[n * n];
+        for (int di = 0; di < 3; di++) {
+            for (int dj = 0; dj < 3; dj++) {
+                int index = (i + di) * n + j + dj;
+                window[index] = !locked[index];
+            }
+        }
+        return window;
+    }
+
+    // bring the tile that belongs at target home and lock it there
+    private void place(int target) {
+        moveTile(target + 1, target, null, -1);
+        locked[target] = true;
+    }
+
+    // the tile of targetA is put home, the tile of targetB and the blank square are brought into window,
+    // then a search over the three positions within the window puts both tiles home
+    private void placeLastTwo(int targetA, int targetB, boolean[] window) {
+        int a = targetA + 1;
+        int b = targetB + 1;
+        moveTile(a, targetA, null, -1);
+        if (!window[where[b]]) moveTile(b, -1, window, where[a]);
+        if (!window[blank]) walkBlank(-1, window, where[a], where[b]);
+        solveWindow(window, a, b, targetA, targetB);
+        locked[targetA] = true;
+        locked[targetB] = true;
+    }
+
+    // move tile to target, or into any square of targets, along a shortest path that avoids the square
+    // avoid (-1 for none), the blank square going around the tile before each step
+    private void moveTile(int tile, int target, boolean[] targets, int avoid) {
+        int end = search(where[tile], target, targets, avoid, -1);
+        if (end < 0) throw new IllegalStateException("tile " + tile + " cannot reach its square");
+        // the path from the end back to the tile, reversed
+        int length = 0;
+        for (int square = end; square != where[tile]; square = previous[square]) length++;
+        int[] path = new int[length];
+        for (int square = end, k = length - 1; k >= 0; square = previous[square], k--) path[k] = square;
+        for (int next : path) {
+            walkBlank(next, null, where[tile], avoid);
+            slide(MoveSequence.direction(blank, where[tile], n));
+        }
+    }
+
+    // move the blank square to target, or into any square of targets, around the squares avoid1 and avoid2
+    private void walkBlank(int target, boolean[] targets, int avoid1, int avoid2) {
+        if (blank == target) return;
+        int end = search(blank, target, targets, avoid1, avoid2);
+        if (end < 0) throw new IllegalStateException("the blank square is walled in");
+        int length = 0;
+        for (int square = end; square != blank; square = previous[square]) length++;
+        int[] path = new int[length];
+        for (int square = end, k = length - 1; k >= 0; square = previous[square], k--) path[k] = square;
+        for (int next : path) slide(MoveSequence.direction(blank, next, n));
+    }
+
+    // breadth first search of the free squares from start to target or to the first square of targets,
+    // returns the square reached, its path is in previous, or -1
+    private int search(int start, int target, boolean[] targets, int avoid1, int avoid2) {
+        stamp++;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        marks[start] = stamp;
+        while (head < tail) {
+            int square = queue[head++];
+            if (square == target || (targets != null && targets[square])) return square;
+            int i = square / n;
+            int j = square % n;
+            for (int direction = MutableBoard.UP; direction <= MutableBoard.RIGHT; direction++) {
+                int next = MutableBoard.target(i, j, n, direction);
+                if (next < 0 || locked[next] || next == avoid1 || next == avoid2 || marks[next] == stamp) continue;
+                marks[next] = stamp;
+                previous[next] = square;
+                queue[tail++] = next;
+            }
+        }
+        return -1;
+    }
+
+    // breadth first search over the positions of tiles a and b and of the blank square within window,
+    // the other tiles of the window do not matter
+    private void solveWindow(boolean[] window, int a, int b, int targetA, int targetB) {
+        int[] squares = new int[9];
+        int k = 0;
+        for (int square = 0; square < window.length; square++) {
+            if (window[square]) squares[k++] = square;
+        }
+        int[] slot = new int[n * n];
+        for (int s = 0; s < k; s++) slot[squares[s]] = s;
+
+        // state = (slot of a * k + slot of b) * k + slot of the blank
+        int states = k * k * k;
+        int[] parent = new int[states];
+        byte[] moveTo = new byte[states];
+        Arrays.fill(parent, -2);
+        int[] frontier = new int[states];
+        int head = 0;
+        int tail = 0;
+        int start = (slot[where[a]] * k + slot[where[b]]) * k + slot[blank];
+        parent[start] = -1;
+        frontier[tail++] = start;
+        int goal = -1;
+        while (head < tail) {
+            int state = frontier[head++];
+            int sa = state / (k * k);
+            int sb = state / k % k;
+            int sz = state % k;
+            if (squares[sa] == targetA && squares[sb] == targetB) {
+                goal = state;
+                break;
+            }
+            int z = squares[sz];
+            for (int direction = MutableBoard.UP; direction <= MutableBoard.RIGHT; direction++) {
+                int next = MutableBoard.target(z / n, z % n, n, direction);
+                if (next < 0 || !window[next]) continue;
+                int na = sa == slot[next] ? sz : sa;
+                int nb = sb == slot[next] ? sz : sb;
+                int child = (na * k + nb) * k + slot[next];
+                if (parent[child] != -2) continue;
+                parent[child] = state;
+                moveTo[child] = (byte) direction;
+                frontier[tail++] = child;
+            }
+        }
+        if (goal < 0) throw new IllegalStateException("the last two tiles cannot be placed");
+        int length = 0;
+        for (int state = goal; parent[state] != -1; state = parent[state]) length++;
+        int[] path = new int[length];
+        for (int state = goal, m = length - 1; m >= 0; state = parent[state], m--) path[m] = moveTo[state];
+        for (int direction : path) slide(direction);
+    }
+
+    // the bottom right 3x3 board is solved optimally by the table, its tiles renumbered 1 to 8
+    private void solveLastThree() {
+        int corner = n - 3;
+        int[][] small = new int[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                int tile = tiles[(corner + i) * n + corner + j];
+                if (tile == 0) continue;
+                int home = tile - 1;
+                small[i][j] = (home / n - corner) * 3 + home % n - corner + 1;
+            }
+        }
+        MoveSequence finish = EightPuzzleTable.shared().solution(new Board(small));
+        for (int move = 0; move < finish.length(); move++) slide(finish.direction(move));
+    }
+
+    private void slide(int direction) {
+        int target = MutableBoard.target(blank / n, blank % n, n, direction);
+        int tile = tiles[target];
+        tiles[blank] = tile;
+        where[tile] = blank;
+        tiles[target] = 0;
+        where[0] = target;
+        blank = target;
+        if (count == directions.length) directions = Arrays.copyOf(directions, count * 2);
+        directions[count++] = direction;
+        budget.check(statistics, count, 0);
+    }
+
+    // the moves replayed from the initial board, the last ones shortened after each move as long as a box
+    // gives a shorter way
+    private MoveSequence shorten() {
+        for (int index = 0; index < n * n; index++) tiles[index] = initial.tileAt(index);
+        int[] kept = new int[count];
+        int[] blanks = new int[count + 1]; // blanks[k], the blank square after the first k moves kept
+        blanks[0] = initial.blankIndex();
+        int size = 0;
+        for (int move = 0; move < count; move++) {
+            int from = blanks[size];
+            int to = MutableBoard.target(from / n, from % n, n, directions[move]);
+            tiles[from] = tiles[to];
+            tiles[to] = 0;
+            kept[size++] = directions[move];
+            blanks[size] = to;
+            int shorter;
+            while ((shorter = shortenLast(kept, blanks, size)) < size) size = shorter;
+        }
+        return MoveSequence.of(kept, size);
+    }
+
+    // the number of moves kept once the last of the size moves are replaced by a shorter way in a box with
+    // the blank square on one of its corners, size when no box gives a shorter one; tiles follows the moves
+    private int shortenLast(int[] kept, int[] blanks, int size) {
+        int blankRow = blanks[size] / n;
+        int blankColumn = blanks[size] % n;
+        // the box spans the two rows above or below the blank square, and the two columns left or right of it
+        for (int rows = -2; rows <= 2; rows += 4) {
+            for (int columns = -2; columns <= 2; columns += 4) {
+                int top = Math.min(blankRow, blankRow + rows);
+                int left = Math.min(blankColumn, blankColumn + columns);
+                if (top < 0 || left < 0 || top + 2 >= n || left + 2 >= n) continue;
+                // the first move of the longest run of moves within the box
+                int start = size;
+                while (start > 0 && size - start < WINDOW && inBox(blanks[start - 1], top, left)) start--;
+                if (size - start < 2) continue;
+                // the box now, then as it was before the run
+                for (int i = top; i < top + 3; i++) {
+                    for (int j = left; j < left + 3; j++) {
+                        box[boxSquare(i * n + j, blankRow, blankColumn)] = tiles[i * n + j];
+                    }
+                }
+                System.arraycopy(box, 0, boxGoal, 0, 9);
+                for (int move = size - 1; move >= start; move--) {
+                    int a = boxSquare(blanks[move], blankRow, blankColumn);
+                    int b = boxSquare(blanks[move + 1], blankRow, blankColumn);
+                    box[b] = box[a];
+                    box[a] = 0;
+                }
+                // renumbered so that the box now is the goal of the table
+                for (int square = 0; square < 9; square++) {
+                    if (box[square] == 0) continue;
+                    int goal = 0;
+                    while (boxGoal[goal] != box[square]) goal++;
+                    box[square] = goal + 1;
+                }
+                EightPuzzleTable table = EightPuzzleTable.shared();
+                if (table.distance(box) >= size - start) continue;
+
+                int[][] small = new int[3][3];
+                for (int square = 0; square < 9; square++) small[square / 3][square % 3] = box[square];
+                MoveSequence way = table.solution(new Board(small));
+                for (int move = size - 1; move >= start; move--) {
+                    tiles[blanks[move + 1]] = tiles[blanks[move]];
+                    tiles[blanks[move]] = 0;
+                }
+                int length = start;
+                for (int move = 0; move < way.length(); move++) {
+                    // the box was turned upside down when the blank square ends on its top row, and the same
+                    // for the columns
+                    int direction = way.direction(move);
+                    boolean vertical = direction == MutableBoard.UP || direction == MutableBoard.DOWN;
+                    if (vertical ? rows > 0 : columns > 0) direction = MutableBoard.opposite(direction);
+                    int from = blanks[length];
+                    int to = MutableBoard.target(from / n, from % n, n, direction);
+                    tiles[from] = tiles[to];
+                    tiles[to] = 0;
+                    kept[length++] = direction;
+                    blanks[length] = to;
+                }
+                return length;
+            }
+        }
+        return size;
+    }
+
+    private boolean inBox(int square, int top, int left) {
+        int i = square / n;
+        int j = square % n;
+        return i >= top && i < top + 3 && j >= left && j < left + 3;
+    }
+
+    // index in a 3x3 board of square of a box with the blank square on a corner, the box being reflected so
+    // that this corner is the bottom right one
+    private int boxSquare(int square, int blankRow, int blankColumn) {
+        return (2 - Math.abs(square / n - blankRow)) * 3 + 2 - Math.abs(square % n - blankColumn);
+    }
+
+    // what the solver did, only the time is measured
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    // is the initial board solvable?
+    public boolean isSolvable() {
+        return isSolvable;
+    }
+
+    // number of moves of the solution found, not the shortest one, -1 if unsolvable
+    public int moves() {
+        return isSolvable ? moveSequence.length() : -1;
+    }
+
+    // number of moves before the peephole pass, -1 if unsolvable
+    public int rawMoves() {
+        return rawMoves;
+    }
+
+    // sequence of boards in the solution found
+    public Iterable<Board> solution() {
+        if (!isSolvable()) return null;
+        return moveSequence.boards(initial);
+    }
+
+    // the moves of the blank square in the solution found
+    public MoveSequence moveSequence() {
+        return moveSequence;
+    }
+
+    // moves and time for random boards of each dimension given, -raw skips the peephole pass
+    public static void main(String[] args) {
+        boolean optimize = args.length == 0 || !args[0].equals("-raw");
+        String[] sizes = optimize ? args : Arrays.copyOfRange(args, 1, args.length);
+        int[] dimensions = sizes.length == 0 ? new int[]{10, 20, 30, 50}
+                : Arrays.stream(sizes).mapToInt(Integer::parseInt).toArray();
+        Random random = new Random(42);
+        int boards = 5;
+        for (int n : dimensions) {
+            long moves = 0;
+            long rawMoves = 0;
+            long nanos = 0;
+            for (int k = 0; k < boards; k++) {
+                Board board = InstanceGenerator.uniform(n, random);
+                long start = System.nanoTime();
+                LargeBoardSolver solver = new LargeBoardSolver(board, SearchBudget.UNLIMITED, optimize);
+                nanos += System.nanoTime() - start;
+                moves += solver.moves();
+                rawMoves += solver.rawMoves();
+            }
+            StdOut.printf("%3dx%-3d %9d moves (%d before the peephole pass) %9.2f ms on average over %d "
+                    + "boards%n", n, n, moves / boards, rawMoves / boards, nanos / 1e6 / boards, boards);
+        }
+    }
+}
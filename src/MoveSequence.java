@@ -0,0 +1,161 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// A solution as the directions the blank square moves in, 2 bits per move with the MutableBoard codes
+// (U, D, L, R), 32 moves to a long. A solver keeps this and its initial board once the search is over
+// instead of a chain of nodes, and the boards of the solution are only created while they are iterated.
+public final class MoveSequence {
+    private static final char[] LETTERS = {'U', 'D', 'L', 'R'};
+
+    private final long[] words;
+    private final int length;
+
+    private MoveSequence(long[] words, int length) {
+        this.words = words;
+        this.length = length;
+    }
+
+    // the first count directions of directions
+    static MoveSequence of(int[] directions, int count) {
+        long[] words = new long[(count + 31) >>> 5];
+        for (int move = 0; move < count; move++) {
+            words[move >>> 5] |= (long) directions[move] << ((move & 31) << 1);
+        }
+        return new MoveSequence(words, count);
+    }
+
+    // the moves between consecutive boards of a solution
+    static MoveSequence of(Iterable<Board> boards) {
+        int[] directions = new int[64];
+        int count = 0;
+        Board previous = null;
+        for (Board board : boards) {
+            if (previous != null) {
+                if (count == directions.length) directions = Arrays.copyOf(directions, count * 2);
+                directions[count++] = direction(previous.blankIndex(), board.blankIndex(), board.dimension());
+            }
+            previous = board;
+        }
+        return of(directions, count);
+    }
+
+    // moves written as letters, "UULDR" for instance
+    public static MoveSequence parse(String moves) {
+        int[] directions = new int[moves.length()];
+        for (int move = 0; move < directions.length; move++) {
+            directions[move] = "UDLR".indexOf(moves.charAt(move));
+            if (directions[move] < 0) throw new IllegalArgumentException("unknown move " + moves.charAt(move));
+        }
+        return of(directions, directions.length);
+    }
+
+    // the direction the blank square moved in from index from to index to
+    static int direction(int from, int to, int dimension) {
+        if (to == from - dimension) return MutableBoard.UP;
+        if (to == from + dimension) return MutableBoard.DOWN;
+        if (to == from - 1) return MutableBoard.LEFT;
+        if (to == from + 1) return MutableBoard.RIGHT;
+        throw new IllegalArgumentException("squares " + from + " and " + to + " are not neighbors");
+    }
+
+    // number of moves
+    public int length() {
+        return length;
+    }
+
+    // direction of the blank square at move (see MutableBoard)
+    public int direction(int move) {
+        if (move < 0 || move >= length) throw new IndexOutOfBoundsException("move " + move + " of " + length);
+        return (int) (words[move >>> 5] >>> ((move & 31) << 1)) & 3;
+    }
+
+    // the letter of the move, U, D, L or R
+    public char letter(int move) {
+        return LETTERS[direction(move)];
+    }
+
+    // the boards from initial to the goal, each one made when the iteration reaches it
+    public Iterable<Board> boards(Board initial) {
+        if (initial == null) throw new IllegalArgumentException();
+        return new Boards(initial);
+    }
+
+    private final class Boards implements Iterable<Board> {
+        private final Board initial;
+
+        Boards(Board initial) {
+            this.initial = initial;
+        }
+
+        public Iterator<Board> iterator() {
+            return new Iterator<Board>() {
+                private Board board;
+                private int move = -1;
+
+                public boolean hasNext() {
+                    return move < length;
+                }
+
+                public Board next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    board = move < 0 ? initial : board.slide(direction(move));
+                    if (board == null) throw new IllegalStateException("move " + move + " leaves the board");
+                    move++;
+                    return board;
+                }
+            };
+        }
+
+        // the boards separated by spaces, as the algs4 collections print them
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            for (Board board : this) {
+                s.append(board);
+                s.append(' ');
+            }
+            return s.toString();
+        }
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeShort(length);
+        for (long word : words) out.writeLong(word);
+    }
+
+    static MoveSequence read(DataInput in) throws IOException {
+        int length = in.readUnsignedShort();
+        long[] words = new long[(length + 31) >>> 5];
+        for (int w = 0; w < words.length; w++) words[w] = in.readLong();
+        return new MoveSequence(words, length);
+    }
+
+    // approximate bytes held, the array and the object headers
+    int bytes() {
+        return 32 + 8 * words.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) return true;
+        if (!(other instanceof MoveSequence)) return false;
+        MoveSequence that = (MoveSequence) other;
+        return length == that.length && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * length + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder(length);
+        for (int move = 0; move < length; move++) s.append(letter(move));
+        return s.toString();
+    }
+}
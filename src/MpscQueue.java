@@ -0,0 +1,38 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+// Unbounded lock-free queue for many producer threads and a single consumer thread (Vyukov's intrusive
+// MPSC queue). A producer swaps itself in as the tail with one atomic exchange then links the previous
+// tail to it; until that link is written the consumer simply sees the queue as shorter.
+final class MpscQueue<T> {
+    private static final class Link<T> {
+        T value;
+        volatile Link<T> next;
+    }
+
+    private final AtomicReference<Link<T>> tail;
+    private Link<T> head; // only touched by the consumer, the last link consumed
+
+    MpscQueue() {
+        Link<T> stub = new Link<>();
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    // add value, from any thread
+    void offer(T value) {
+        Link<T> link = new Link<>();
+        link.value = value;
+        Link<T> previous = tail.getAndSet(link);
+        previous.next = link;
+    }
+
+    // remove the oldest value, null if none is visible yet, from the consumer thread only
+    T poll() {
+        Link<T> next = head.next;
+        if (next == null) return null;
+        T value = next.value;
+        next.value = null; // the link becomes the new stub, avoid loitering
+        head = next;
+        return value;
+    }
+}
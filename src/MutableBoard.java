@@ -0,0 +1,96 @@
+import java.util.Arrays;
+
+// A board that is changed in place by sliding its blank square, used by the searches that must not
+// allocate a Board for every node. The Manhattan distance is kept up to date after each slide and a
+// slide is undone by sliding back in the opposite direction.
+class MutableBoard implements TileGrid {
+    // directions the blank square moves to, opposite directions only differ by their last bit
+    static final int UP = 0;
+    static final int DOWN = 1;
+    static final int LEFT = 2;
+    static final int RIGHT = 3;
+
+    private final int dimension;
+    private final int[] tiles; // row-major tiles
+    private int blank; // index of the blank square
+    private int manhattan;
+
+    MutableBoard(Board board) {
+        dimension = board.dimension();
+        tiles = new int[dimension * dimension];
+        for (int index = 0; index < tiles.length; index++) {
+            tiles[index] = board.tileAt(index);
+            if (tiles[index] == 0) blank = index;
+        }
+        manhattan = board.manhattan();
+    }
+
+    // the direction that undoes direction
+    static int opposite(int direction) {
+        return direction ^ 1;
+    }
+
+    // index of the square the blank at (blank_i, blank_j) moves to in direction, -1 if it falls off the board
+    static int target(int blank_i, int blank_j, int dimension, int direction) {
+        switch (direction) {
+            case UP:
+                return blank_i > 0 ? (blank_i - 1) * dimension + blank_j : -1;
+            case DOWN:
+                return blank_i + 1 < dimension ? (blank_i + 1) * dimension + blank_j : -1;
+            case LEFT:
+                return blank_j > 0 ? blank_i * dimension + blank_j - 1 : -1;
+            case RIGHT:
+                return blank_j + 1 < dimension ? blank_i * dimension + blank_j + 1 : -1;
+            default:
+                throw new IllegalArgumentException("unknown direction " + direction);
+        }
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    int manhattan() {
+        return manhattan;
+    }
+
+    int blank() {
+        return blank;
+    }
+
+    public int tileAt(int index) {
+        return tiles[index];
+    }
+
+    boolean isGoal() {
+        return manhattan == 0;
+    }
+
+    // can the blank square move in direction?
+    boolean canSlide(int direction) {
+        return target(blank / dimension, blank % dimension, dimension, direction) >= 0;
+    }
+
+    // move the blank square in direction, the tile there takes its place
+    void slide(int direction) {
+        int target = target(blank / dimension, blank % dimension, dimension, direction);
+        int tile = tiles[target];
+        manhattan += distance(tile, blank) - distance(tile, target);
+        tiles[blank] = tile;
+        tiles[target] = 0;
+        blank = target;
+    }
+
+    // an immutable copy of the current position
+    Board toBoard() {
+        int[][] copy = new int[dimension][dimension];
+        for (int i = 0; i < dimension; i++) {
+            copy[i] = Arrays.copyOfRange(tiles, i * dimension, (i + 1) * dimension);
+        }
+        return new Board(copy);
+    }
+
+    private int distance(int tile, int index) {
+        return Math.abs(index / dimension - (tile - 1) / dimension) + Math.abs(index % dimension - (tile - 1) % dimension);
+    }
+}
@@ -0,0 +1,80 @@
+// Operations on the 4 bits per tile encoding of Board.packed(), for the searches that keep boards as
+// plain longs instead of Board objects. Nothing here allocates.
+final class PackedBoards {
+    private static final int BITS = 4;
+
+    private PackedBoards() {
+    }
+
+    static int tileAt(long state, int index) {
+        return (int) (state >>> (index * BITS)) & 0xF;
+    }
+
+    // index of the blank square
+    static int blankIndex(long state, int dimension) {
+        BoardKernel kernel = BoardKernel.of(dimension);
+        if (kernel != null) return kernel.blankIndex(state);
+        int size = dimension * dimension;
+        for (int index = 0; index < size; index++) {
+            if (tileAt(state, index) == 0) return index;
+        }
+        throw new IllegalArgumentException("no blank square");
+    }
+
+    // the encoding of the goal board of dimension
+    static long goal(int dimension) {
+        int size = dimension * dimension;
+        long state = 0L;
+        for (int index = 0; index < size - 1; index++) state |= (long) (index + 1) << (index * BITS);
+        return state;
+    }
+
+    // the state after the tile at target slid into the blank square at blank
+    static long slide(long state, int blank, int target) {
+        long tile = tileAt(state, target);
+        return (state & ~(0xFL << (target * BITS))) | (tile << (blank * BITS));
+    }
+
+    // write the neighbours of state into the caller's buffers, returns how many there are:
+    // states[k] is the k-th neighbour and blanks[k] the index its blank square moved to
+    static int neighbors(long state, int blank, int dimension, long[] states, int[] blanks) {
+        BoardKernel kernel = BoardKernel.of(dimension);
+        if (kernel != null) return kernel.neighbors(state, blank, states, blanks);
+        int count = 0;
+        int i = blank / dimension;
+        int j = blank % dimension;
+        for (int direction = MutableBoard.UP; direction <= MutableBoard.RIGHT; direction++) {
+            int target = MutableBoard.target(i, j, dimension, direction);
+            if (target < 0) continue;
+            states[count] = slide(state, blank, target);
+            blanks[count] = target;
+            count++;
+        }
+        return count;
+    }
+
+    // a reusable TileGrid over a packed state so heuristics can read it without a Board
+    static final class Grid implements TileGrid {
+        private final int dimension;
+        private long state;
+
+        Grid(int dimension) {
+            this.dimension = dimension;
+        }
+
+        Grid set(long state) {
+            this.state = state;
+            return this;
+        }
+
+        @Override
+        public int dimension() {
+            return dimension;
+        }
+
+        @Override
+        public int tileAt(int index) {
+            return PackedBoards.tileAt(state, index);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Hash distributed A* (HDA*): every board is owned by one worker thread, chosen by a hash of its packed
+// encoding. Each worker keeps the open list and closed table of the boards it owns, and sends the
+// neighbours it generates to their owners through lock-free MPSC queues.
+//
+// A goal found by one worker is only an upper bound, the search goes on until no worker holds a node
+// with a lower f. Termination is detected with a single counter of pending work: each busy worker and
+// each message in flight count one. A message consumed by an idle worker hands its count over to the
+// worker, so the counter only reaches 0 when every worker is idle and every queue is empty, and the
+// best goal found is then optimal. Only boards that fit in a long (up to 4x4) are supported.
+public class ParallelSolver implements PuzzleSolver {
+    private static final int INFINITY = Integer.MAX_VALUE;
+    // boards taken in or expanded by a worker between two publications of its counts to the shared totals
+    private static final int PUBLISH_INTERVAL = 64;
+
+    private final Board initial;
+    private final Heuristic heuristic;
+    private final SearchBudget budget;
+    private final boolean isSolvable;
+    private final int threads;
+    private final long goal;
+    private final MpscQueue<SearchNode>[] inboxes;
+    private ClosedTable[] closedTables; // dropped once the moves of the solution are recorded
+    private final AtomicLong pending = new AtomicLong(); // busy workers plus messages in flight
+    private final AtomicInteger bound = new AtomicInteger(INFINITY); // moves of the best goal found
+    // the budget limits the whole search, so it is checked against the totals of all the workers, each of
+    // them publishing its counts every PUBLISH_INTERVAL boards to keep these lines out of the hot path
+    private final AtomicLong expanded = new AtomicLong();
+    private final AtomicLong frontier = new AtomicLong(); // boards in the open lists of all the workers
+    private final SearchStatistics statistics = new SearchStatistics();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private volatile boolean aborted;
+    private int movesValue = -1;
+    private MoveSequence moveSequence;
+
+    // find a solution to the initial board with the Manhattan heuristic on one worker per processor
+    public ParallelSolver(Board given) {
+        this(given, StandardHeuristic.MANHATTAN, Runtime.getRuntime().availableProcessors(), SearchBudget.UNLIMITED);
+    }
+
+    // find a solution to the initial board with HDA* on threads workers guided by heuristic,
+    // throws BudgetExceededException when the search goes over budget
+    public ParallelSolver(Board given, Heuristic heuristic, int threads, SearchBudget budget) {
+        if (null == given || null == heuristic || null == budget) throw new IllegalArgumentException();
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive");
+        if (!given.isPacked()) throw new IllegalArgumentException("boards larger than 4x4 are not supported");
+        this.initial = given;
+        this.heuristic = heuristic;
+        this.budget = budget;
+        this.threads = threads;
+        this.goal = PackedBoards.goal(given.dimension());
+        @SuppressWarnings("unchecked")
+        MpscQueue<SearchNode>[] queues = (MpscQueue<SearchNode>[]) new MpscQueue<?>[threads];
+        this.inboxes = queues;
+        this.closedTables = new ClosedTable[threads];
+        isSolvable = initial.isSolvable();
+        if (!isSolvable) {
+            statistics.finish();
+            return;
+        }
+
+        Worker[] workers = new Worker[threads];
+        for (int w = 0; w < threads; w++) {
+            inboxes[w] = new MpscQueue<>();
+            closedTables[w] = new ClosedTable(1 << 14, true);
+            workers[w] = new Worker(w);
+        }
+        // every worker starts busy, the initial board is handed to its owner like any other message
+        pending.set(threads + 1);
+        int h = heuristic.estimate(initial);
+        inboxes[owner(initial.packed())].offer(new SearchNode(initial.packed(), 0L, initial.blankIndex(), 0, h));
+
+        Thread[] running = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            running[w] = new Thread(workers[w], "hda-worker-" + w);
+            running[w].start();
+        }
+        // an interrupted caller stops the workers but still waits for them, so none outlives the constructor
+        boolean interrupted = false;
+        for (Thread thread : running) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    aborted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        // the workers have been joined, their counts can be read
+        for (Worker worker : workers) {
+            statistics.expanded += worker.statistics.expanded;
+            statistics.generated += worker.statistics.generated;
+            statistics.duplicatesPruned += worker.statistics.duplicatesPruned;
+            statistics.maxFrontier += worker.statistics.maxFrontier;
+        }
+        statistics.finish();
+        RuntimeException e = failure.get();
+        if (e instanceof BudgetExceededException) throw ((BudgetExceededException) e).withStatistics(statistics);
+        if (e != null) throw e;
+        if (Thread.currentThread().isInterrupted()) {
+            throw new BudgetExceededException(SolveStatus.CANCELLED, "interrupted").withStatistics(statistics);
+        }
+        movesValue = bound.get();
+        recordSolution();
+        closedTables = null;
+    }
+
+    // the moves of the blank square on the path to the goal, the parents are followed through the table
+    // of their owner
+    private void recordSolution() {
+        int[] directions = new int[movesValue];
+        int n = initial.dimension();
+        long state = goal;
+        for (int k = movesValue - 1; k >= 0; k--) {
+            long parent = closedTables[owner(state)].parent(state);
+            directions[k] = MoveSequence.direction(PackedBoards.blankIndex(parent, n),
+                    PackedBoards.blankIndex(state, n), n);
+            state = parent;
+        }
+        moveSequence = MoveSequence.of(directions, movesValue);
+    }
+
+    private int owner(long state) {
+        return (int) ((ClosedTable.mix(state) >>> 1) % threads);
+    }
+
+    // a board sent to its owner or waiting in its open list
+    private static final class SearchNode {
+        final long state;
+        final long parent; // 0 for the initial board
+        final int blank;
+        final int moves;
+        final int heuristicValue;
+
+        SearchNode(long state, long parent, int blank, int moves, int heuristicValue) {
+            this.state = state;
+            this.parent = parent;
+            this.blank = blank;
+            this.moves = moves;
+            this.heuristicValue = heuristicValue;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final int id;
+        private final BucketQueue<SearchNode> open = new BucketQueue<>();
+        private final ClosedTable closed;
+        private final MpscQueue<SearchNode> inbox;
+        private final PackedBoards.Grid grid = new PackedBoards.Grid(initial.dimension());
+        private final long[] neighborStates = new long[4];
+        private final int[] neighborBlanks = new int[4];
+        private final SearchStatistics statistics = new SearchStatistics();
+        private boolean busy = true;
+        private int events; // boards taken in or expanded since the last publication
+        private long publishedExpanded; // counts as last added to the shared totals
+        private long publishedOpen;
+
+        Worker(int id) {
+            this.id = id;
+            this.closed = closedTables[id];
+            this.inbox = inboxes[id];
+        }
+
+        @Override
+        public void run() {
+            try {
+                search();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                aborted = true;
+            }
+        }
+
+        private void search() {
+            while (!aborted) {
+                SearchNode message = inbox.poll();
+                if (message != null) {
+                    // an idle worker takes over the count of the message, a busy one releases it
+                    if (busy) pending.decrementAndGet();
+                    busy = true;
+                    receive(message);
+                    continue;
+                }
+                if (!open.isEmpty() && open.minPriority() < bound.get()) {
+                    expand(open.delMin());
+                    continue;
+                }
+                // nothing left that could beat the best goal found
+                if (busy) {
+                    busy = false;
+                    pending.decrementAndGet();
+                }
+                if (pending.get() == 0) return;
+                Thread.yield();
+            }
+        }
+
+        // add the counts of this worker since the last time to the totals and check them against the budget
+        private void publish() {
+            events = 0;
+            long nodes = expanded.addAndGet(statistics.expanded - publishedExpanded);
+            long openBoards = frontier.addAndGet(open.size() - publishedOpen);
+            publishedExpanded = statistics.expanded;
+            publishedOpen = open.size();
+            budget.check(statistics, nodes, openBoards);
+        }
+
+        // a board generated by any worker, owned by this one
+        private void receive(SearchNode node) {
+            if (node.moves + node.heuristicValue >= bound.get()) return;
+            int knownMoves = closed.get(node.state);
+            if (knownMoves >= 0 && knownMoves <= node.moves) {
+                statistics.duplicatesPruned++;
+                return;
+            }
+            statistics.generated++;
+            closed.put(node.state, node.moves, node.parent);
+            open.insert(node, node.moves + node.heuristicValue, node.heuristicValue);
+            // a worker may take in many boards between two expansions, they count towards the frontier too
+            if (++events == PUBLISH_INTERVAL) publish();
+        }
+
+        private void expand(SearchNode node) {
+            // a shorter path to this board was found after it was inserted
+            if (closed.get(node.state) < node.moves) {
+                statistics.duplicatesPruned++;
+                return;
+            }
+            if (node.state == goal) {
+                int best = bound.get();
+                while (node.moves < best && !bound.compareAndSet(best, node.moves)) best = bound.get();
+                return;
+            }
+            statistics.expanded(open.size(), node.moves + node.heuristicValue, node.moves);
+            if (++events == PUBLISH_INTERVAL) publish();
+
+            int count = PackedBoards.neighbors(node.state, node.blank, initial.dimension(), neighborStates, neighborBlanks);
+            for (int k = 0; k < count; k++) {
+                long neighbor = neighborStates[k];
+                if (neighbor == node.parent) continue;
+                int from = neighborBlanks[k];
+                int h = heuristic.update(grid.set(neighbor), node.heuristicValue,
+                        PackedBoards.tileAt(node.state, from), from, node.blank);
+                if (node.moves + 1 + h >= bound.get()) continue;
+                SearchNode child = new SearchNode(neighbor, node.state, from, node.moves + 1, h);
+                int owner = owner(neighbor);
+                if (owner == id) {
+                    receive(child);
+                } else {
+                    pending.incrementAndGet(); // counted before it becomes visible to its owner
+                    inboxes[owner].offer(child);
+                }
+            }
+        }
+    }
+
+    // what the search did to find the solution, the sums over all the workers
+    // (maxFrontier is the sum of the largest open list of each worker)
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    // is the initial board solvable?
+    public boolean isSolvable() {
+        return isSolvable;
+    }
+
+    // min number of moves to solve initial board
+    public int moves() {
+        return movesValue;
+    }
+
+    // sequence of boards in a shortest solution
+    public Iterable<Board> solution() {
+        if (!isSolvable()) return null;
+        return moveSequence.boards(initial);
+    }
+
+    // the moves of the blank square in a shortest solution
+    public MoveSequence moveSequence() {
+        return moveSequence;
+    }
+
+    // speedup of the search of one file against the number of workers
+    // % java ParallelSolver SampleData/puzzle4x4-45.txt 8
+    public static void main(String[] args) {
+        Board initial = PuzzleChecker.readBoard(args[0]);
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long start = System.nanoTime();
+            ParallelSolver solver = new ParallelSolver(initial, StandardHeuristic.MANHATTAN, threads, SearchBudget.UNLIMITED);
+            long elapsed = System.nanoTime() - start;
+            if (threads == 1) baseline = elapsed;
+            StdOut.printf("%2d threads: %d moves, %d expanded, %.3f s, speedup %.2f%n", threads, solver.moves(),
+                    solver.statistics().expanded(), elapsed / 1e9, (double) baseline / elapsed);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Additive disjoint pattern database heuristic. The tiles are split in groups, for each group a table gives
+// the fewest moves of the group's own tiles needed to bring them home from their current positions, moves of
+// the other tiles being free. As no move is counted in two groups the values of the groups add up.
+//
+// Tables are written by PatternDatabaseGenerator and mapped read-only from the file, so loading is immediate
+// and every JVM opening the same file shares the operating system page cache. File layout, big-endian:
+//   int MAGIC, int dimension, int group count, then for each group: int k, k ints for its tiles,
+//   then for each group the P(n*n, k) bytes of its table indexed by rank(positions of its tiles)
+public class PatternDatabase implements Heuristic {
+    static final int MAGIC = 0x50444231; // "PDB1"
+    private static final int POSITION_BITS = 8; // per tile in the packed positions of a group
+    private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+
+    private final int dimension;
+    private final int[][] groups; // the tiles of each group
+    private final ByteBuffer[] tables;
+    private final int[] groupOf; // group of each tile
+    private final int[] slotOf; // position of each tile within its group
+
+    PatternDatabase(int dimension, int[][] groups, ByteBuffer[] tables) {
+        this.dimension = dimension;
+        this.groups = groups;
+        this.tables = tables;
+        int size = dimension * dimension;
+        groupOf = new int[size];
+        slotOf = new int[size];
+        Arrays.fill(groupOf, -1);
+        for (int g = 0; g < groups.length; g++) {
+            if (groups[g].length > Long.SIZE / POSITION_BITS) {
+                throw new IllegalArgumentException("groups of more than " + Long.SIZE / POSITION_BITS
+                        + " tiles are not supported");
+            }
+            for (int s = 0; s < groups[g].length; s++) {
+                int tile = groups[g][s];
+                if (tile <= 0 || tile >= size || groupOf[tile] >= 0) {
+                    throw new IllegalArgumentException("tile " + tile + " is not valid in a disjoint partition");
+                }
+                groupOf[tile] = g;
+                slotOf[tile] = s;
+            }
+        }
+        for (int tile = 1; tile < size; tile++) {
+            if (groupOf[tile] < 0) throw new IllegalArgumentException("tile " + tile + " belongs to no group");
+        }
+    }
+
+    // map the pattern database stored in file
+    public static PatternDatabase load(String file) throws IOException {
+        Path path = Paths.get(file);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) throw new IOException(file + " is not a pattern database");
+            int dimension = buffer.getInt();
+            int[][] groups = new int[buffer.getInt()][];
+            for (int g = 0; g < groups.length; g++) {
+                groups[g] = new int[buffer.getInt()];
+                for (int s = 0; s < groups[g].length; s++) groups[g][s] = buffer.getInt();
+            }
+            ByteBuffer[] tables = new ByteBuffer[groups.length];
+            int offset = buffer.position();
+            for (int g = 0; g < groups.length; g++) {
+                int length = (int) tableSize(dimension * dimension, groups[g].length);
+                if (offset + (long) length > buffer.capacity()) throw new IOException(file + " is truncated");
+                ByteBuffer table = buffer.duplicate();
+                table.position(offset).limit(offset + length);
+                tables[g] = table.slice();
+                offset += length;
+            }
+            return new PatternDatabase(dimension, groups, tables);
+        }
+    }
+
+    // number of ordered placements of k tiles on size squares, P(size, k)
+    static long tableSize(int size, int k) {
+        long count = 1;
+        for (int i = 0; i < k; i++) count *= size - i;
+        return count;
+    }
+
+    // rank of k distinct positions among the P(size, k) ordered placements
+    static int rank(int[] positions, int k, int size) {
+        int rank = 0;
+        long used = 0L;
+        for (int i = 0; i < k; i++) {
+            int p = positions[i];
+            // the position counted among the squares not taken by the previous tiles
+            int free = p - Long.bitCount(used & ((1L << p) - 1));
+            rank = rank * (size - i) + free;
+            used |= 1L << p;
+        }
+        return rank;
+    }
+
+    // same as above for k positions packed POSITION_BITS each, the first one in the lowest bits
+    private static int rank(long positions, int k, int size) {
+        int rank = 0;
+        long used = 0L;
+        for (int i = 0; i < k; i++) {
+            int p = (int) (positions >>> (i * POSITION_BITS) & POSITION_MASK);
+            int free = p - Long.bitCount(used & ((1L << p) - 1));
+            rank = rank * (size - i) + free;
+            used |= 1L << p;
+        }
+        return rank;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    // the tiles of each group
+    int[][] groups() {
+        return groups;
+    }
+
+    @Override
+    public int estimate(TileGrid board) {
+        checkDimension(board);
+        int value = 0;
+        for (int g = 0; g < groups.length; g++) value += lookup(g, positions(board, g));
+        return value;
+    }
+
+    @Override
+    public int update(TileGrid board, int value, int tile, int from, int to) {
+        // only the group of the moved tile changes, and before the slide only the tile was elsewhere
+        int g = groupOf[tile];
+        long after = positions(board, g);
+        int shift = slotOf[tile] * POSITION_BITS;
+        long before = after & ~(POSITION_MASK << shift) | (long) from << shift;
+        return value - lookup(g, before) + lookup(g, after);
+    }
+
+    private int lookup(int group, long positions) {
+        return tables[group].get(rank(positions, groups[group].length, dimension * dimension)) & 0xFF;
+    }
+
+    // positions of the tiles of group g packed in a long, found in one pass over the board without allocating,
+    // as the database is shared by every search and thread
+    private long positions(TileGrid board, int g) {
+        long positions = 0L;
+        int size = dimension * dimension;
+        for (int index = 0; index < size; index++) {
+            int tile = board.tileAt(index);
+            if (tile != 0 && groupOf[tile] == g) positions |= (long) index << (slotOf[tile] * POSITION_BITS);
+        }
+        return positions;
+    }
+
+    private void checkDimension(TileGrid board) {
+        if (board.dimension() != dimension) {
+            throw new IllegalArgumentException("pattern database for " + dimension + "x" + dimension
+                    + " boards used on a " + board.dimension() + "x" + board.dimension() + " board");
+        }
+    }
+}
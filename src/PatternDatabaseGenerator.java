@@ -0,0 +1,188 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Builds the tables of a PatternDatabase with a breadth first search run backwards from the goal board.
+// A state is made of the positions of the tiles of one group plus the blank square, the other tiles being
+// indistinguishable. Sliding a tile of the group costs one move, sliding any other tile is free, so the
+// search is a 0-1 BFS done layer by layer. The table keeps for each placement of the group the fewest moves
+// over all the positions of the blank square.
+//
+// % java PatternDatabaseGenerator 4 663 pdb-4x4-663.bin
+// % java PatternDatabaseGenerator 4 1,2,3,4,5/6,7,8,9,10/11,12,13,14,15 pdb-4x4-555.bin
+public class PatternDatabaseGenerator {
+    private static final byte UNSEEN = (byte) 0xFF;
+
+    // the usual partitions of the 15-puzzle, the 6-6-3 one keeps the bottom right corner together
+    static final int[][] PARTITION_555 = {{1, 2, 3, 4, 5}, {6, 7, 8, 9, 10}, {11, 12, 13, 14, 15}};
+    static final int[][] PARTITION_663 = {{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}};
+
+    private PatternDatabaseGenerator() {
+    }
+
+    // build the tables of every group, in memory
+    static PatternDatabase build(int dimension, int[][] groups) {
+        ByteBuffer[] tables = new ByteBuffer[groups.length];
+        for (int g = 0; g < groups.length; g++) tables[g] = ByteBuffer.wrap(buildTable(dimension, groups[g]));
+        return new PatternDatabase(dimension, groups, tables);
+    }
+
+    // the table of one group: fewest moves of its tiles indexed by the rank of their positions
+    static byte[] buildTable(int dimension, int[] group) {
+        int size = dimension * dimension;
+        int k = group.length;
+        int bits = Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+        // a state is packed in an int, bits per position for each tile of the group then the blank
+        if ((k + 1) * bits > Integer.SIZE) {
+            throw new IllegalArgumentException("groups of " + k + " tiles are too large for " + dimension + "x" + dimension);
+        }
+        long states = PatternDatabase.tableSize(size, k + 1);
+        if (states > Integer.MAX_VALUE) throw new IllegalArgumentException("group of " + k + " tiles is too large");
+
+        byte[] distance = new byte[(int) states];
+        Arrays.fill(distance, UNSEEN);
+        int mask = (1 << bits) - 1;
+        int[] positions = new int[k + 1];
+
+        // the goal board: every tile at home and the blank square in the bottom right corner
+        for (int s = 0; s < k; s++) positions[s] = group[s] - 1;
+        positions[k] = size - 1;
+        distance[PatternDatabase.rank(positions, k + 1, size)] = 0;
+        IntQueue current = new IntQueue();
+        IntQueue next = new IntQueue();
+        current.enqueue(pack(positions, bits));
+
+        for (int moves = 0; !current.isEmpty(); moves++) {
+            if (moves + 1 >= 0xFF) throw new IllegalStateException("distances do not fit in a byte");
+            while (!current.isEmpty()) {
+                int state = current.dequeue();
+                for (int s = 0; s <= k; s++) positions[s] = (state >>> (s * bits)) & mask;
+                // a stale copy, the state was reached with fewer moves after it was queued
+                if ((distance[PatternDatabase.rank(positions, k + 1, size)] & 0xFF) < moves) continue;
+
+                int blank = positions[k];
+                for (int direction = MutableBoard.UP; direction <= MutableBoard.RIGHT; direction++) {
+                    int target = MutableBoard.target(blank / dimension, blank % dimension, dimension, direction);
+                    if (target < 0) continue;
+                    // is the blank swapping with a tile of the group?
+                    int moved = -1;
+                    for (int s = 0; s < k; s++) {
+                        if (positions[s] == target) moved = s;
+                    }
+                    if (moved >= 0) positions[moved] = blank;
+                    positions[k] = target;
+                    int cost = moved >= 0 ? moves + 1 : moves;
+                    int rank = PatternDatabase.rank(positions, k + 1, size);
+                    if ((distance[rank] & 0xFF) > cost) {
+                        distance[rank] = (byte) cost;
+                        if (moved >= 0) next.enqueue(pack(positions, bits));
+                        else current.enqueue(pack(positions, bits));
+                    }
+                    // put the state back for the next direction
+                    if (moved >= 0) positions[moved] = target;
+                    positions[k] = blank;
+                }
+            }
+            IntQueue swap = current;
+            current = next;
+            next = swap;
+        }
+
+        // the rank of k+1 positions is rank(first k) * (size - k) + the rank of the blank among the free squares,
+        // so the blank positions of one placement of the group are consecutive
+        int placements = (int) PatternDatabase.tableSize(size, k);
+        byte[] table = new byte[placements];
+        for (int p = 0; p < placements; p++) {
+            int best = 0xFF;
+            for (int b = 0; b < size - k; b++) best = Math.min(best, distance[p * (size - k) + b] & 0xFF);
+            table[p] = (byte) best;
+        }
+        return table;
+    }
+
+    private static int pack(int[] positions, int bits) {
+        int state = 0;
+        for (int s = 0; s < positions.length; s++) state |= positions[s] << (s * bits);
+        return state;
+    }
+
+    // write the tables of every group to file in the layout read by PatternDatabase.load()
+    static void write(int dimension, int[][] groups, byte[][] tables, String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(PatternDatabase.MAGIC);
+            out.writeInt(dimension);
+            out.writeInt(groups.length);
+            for (int[] group : groups) {
+                out.writeInt(group.length);
+                for (int tile : group) out.writeInt(tile);
+            }
+            for (byte[] table : tables) out.write(table);
+        }
+    }
+
+    // 555, 663 or groups of tiles separated by slashes, 1,2,3/4,5,6,7,8 for instance
+    static int[][] parsePartition(String partition) {
+        if (partition.equals("555")) return PARTITION_555;
+        if (partition.equals("663")) return PARTITION_663;
+        String[] names = partition.split("/");
+        int[][] groups = new int[names.length][];
+        for (int g = 0; g < names.length; g++) {
+            groups[g] = Arrays.stream(names[g].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        }
+        return groups;
+    }
+
+    // growable FIFO of ints, the frontier of one layer of the search
+    private static final class IntQueue {
+        private int[] items = new int[1024];
+        private int head;
+        private int tail;
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+
+        void enqueue(int item) {
+            if (tail == items.length) {
+                // reuse the space of the items already dequeued before growing
+                int[] target = head > items.length / 2 ? items : new int[items.length * 2];
+                System.arraycopy(items, head, target, 0, tail - head);
+                items = target;
+                tail -= head;
+                head = 0;
+            }
+            items[tail++] = item;
+        }
+
+        int dequeue() {
+            int item = items[head++];
+            if (head == tail) head = tail = 0;
+            return item;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: java PatternDatabaseGenerator dimension partition file");
+            return;
+        }
+        int dimension = Integer.parseInt(args[0]);
+        int[][] groups = parsePartition(args[1]);
+        // fails fast on a partition that does not cover every tile
+        new PatternDatabase(dimension, groups, new ByteBuffer[groups.length]);
+
+        byte[][] tables = new byte[groups.length][];
+        for (int g = 0; g < groups.length; g++) {
+            long start = System.nanoTime();
+            tables[g] = buildTable(dimension, groups[g]);
+            StdOut.printf("group %s: %d entries in %.1f s%n", Arrays.toString(groups[g]), tables[g].length,
+                    (System.nanoTime() - start) / 1e9);
+        }
+        write(dimension, groups, tables, args[2]);
+    }
+}
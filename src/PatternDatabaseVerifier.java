@@ -0,0 +1,62 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Checks that a pattern database never overestimates: the sample files are named after the length of
+// their optimal solution (puzzle4x4-27.txt takes 27 moves), the database value of each board must not
+// exceed it. Also prints how much closer to the optimum it gets compared to the Manhattan distance.
+//
+// % java PatternDatabaseVerifier pdb-4x4-663.bin SampleData/puzzle4x4-*.txt
+public class PatternDatabaseVerifier {
+    // puzzle27.txt or puzzle4x4-27.txt, but not puzzle3x3-unsolvable1.txt
+    private static final Pattern OPTIMAL_MOVES = Pattern.compile("(?:^puzzle|-)(\\d+)\\.txt$");
+
+    private PatternDatabaseVerifier() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        PatternDatabase database = PatternDatabase.load(args[0]);
+        int checked = 0;
+        int violations = 0;
+        long databaseTotal = 0;
+        long manhattanTotal = 0;
+        long optimalTotal = 0;
+        for (int a = 1; a < args.length; a++) {
+            String filename = args[a];
+            Matcher matcher = OPTIMAL_MOVES.matcher(new File(filename).getName());
+            if (!matcher.find()) continue; // the unsolvable samples have no optimal move count
+
+            In in = new In(filename);
+            int n = in.readInt();
+            if (n != database.dimension()) continue;
+            int[][] tiles = new int[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    tiles[i][j] = in.readInt();
+                }
+            }
+            Board board = new Board(tiles);
+            if (!board.isSolvable()) continue;
+            int optimal = Integer.parseInt(matcher.group(1));
+            int value = database.estimate(board);
+            checked++;
+            databaseTotal += value;
+            manhattanTotal += board.manhattan();
+            optimalTotal += optimal;
+            if (value > optimal) {
+                violations++;
+                StdOut.println(filename + ": estimate " + value + " exceeds the optimal " + optimal + " moves");
+            }
+        }
+        StdOut.println(checked + " boards checked, " + violations + " admissibility violations");
+        if (checked > 0) {
+            StdOut.printf("average estimate %.2f (manhattan %.2f) for %.2f optimal moves%n",
+                    (double) databaseTotal / checked, (double) manhattanTotal / checked, (double) optimalTotal / checked);
+        }
+        if (violations > 0) System.exit(1);
+    }
+}
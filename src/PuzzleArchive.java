@@ -0,0 +1,214 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Many boards of one dimension in a single binary file, read through a read-only mapping so opening an
+// archive of millions of boards costs one file handle and no parsing. Each board is a record of longs
+// holding its tiles in row-major order, Board.bitsPerTile(dimension) bits each and no tile straddling two
+// longs: one long for a board up to 4x4, which is its packed() encoding. File layout, big-endian:
+//   int MAGIC, int dimension, int longs per record, int unused, long record count, then the records.
+//
+// The results of solving an archive are written next to it (see ResultWriter): int RESULTS_MAGIC,
+// int unused, long count, then for each board int moves (-1 unsolvable, -2 not solved) and long nanos.
+//
+// % java PuzzleArchive convert boards4x4.pzb SampleData/puzzle4x4-*.txt
+// % java PuzzleArchive list boards4x4.pzb
+// % java PuzzleChecker -results=boards4x4.pzr boards4x4.pzb
+public final class PuzzleArchive {
+    static final int MAGIC = 0x505a4231; // "PZB1"
+    static final int RESULTS_MAGIC = 0x505a5231; // "PZR1"
+    private static final int HEADER_BYTES = 24;
+
+    private final int dimension;
+    private final int recordLongs;
+    private final int size;
+    private final ByteBuffer records; // shared by every reader, only absolute gets are used
+
+    private PuzzleArchive(int dimension, int recordLongs, int size, ByteBuffer records) {
+        this.dimension = dimension;
+        this.recordLongs = recordLongs;
+        this.size = size;
+        this.records = records;
+    }
+
+    // map the archive stored in file
+    public static PuzzleArchive open(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException(file + " is larger than 2 GB");
+            // the mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a puzzle archive");
+            }
+            int dimension = buffer.getInt(4);
+            int recordLongs = buffer.getInt(8);
+            long size = buffer.getLong(16);
+            if (recordLongs != recordLongs(dimension)) throw new IOException(file + " has records of the wrong size");
+            if (HEADER_BYTES + size * recordLongs * Long.BYTES > buffer.capacity()) {
+                throw new IOException(file + " is truncated");
+            }
+            buffer.position(HEADER_BYTES);
+            ByteBuffer records = buffer.slice();
+            return new PuzzleArchive(dimension, recordLongs, (int) size, records);
+        }
+    }
+
+    // longs in the record of a board of dimension
+    static int recordLongs(int dimension) {
+        if (dimension < 2 || dimension >= 128) throw new IllegalArgumentException("dimension " + dimension);
+        return Board.wordCount(dimension, Board.bitsPerTile(dimension));
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    // number of boards
+    public int size() {
+        return size;
+    }
+
+    // the packed() encoding of board i, boards up to 4x4 only
+    public long packed(int i) {
+        if (recordLongs != 1) throw new IllegalStateException("boards of dimension " + dimension + " are not packed");
+        return records.getLong(offset(i));
+    }
+
+    // board i, read straight from the mapping
+    public Board board(int i) {
+        if (dimension <= 4) return Board.fromPacked(dimension, packed(i));
+        long[] words = new long[recordLongs];
+        int offset = offset(i);
+        for (int w = 0; w < recordLongs; w++) words[w] = records.getLong(offset + w * Long.BYTES);
+        return Board.fromWords(dimension, words);
+    }
+
+    // the boards in file order, can be made parallel
+    public Stream<Board> boards() {
+        return IntStream.range(0, size).mapToObj(this::board);
+    }
+
+    // the packed() encodings in file order, boards up to 4x4 only
+    public LongStream packedStates() {
+        return IntStream.range(0, size).mapToLong(this::packed);
+    }
+
+    private int offset(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("board " + i + " of " + size);
+        return i * recordLongs * Long.BYTES;
+    }
+
+    // appends boards of one dimension to a new archive, the count in the header is written on close()
+    public static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final int dimension;
+        private final int bitsPerTile;
+        private final ByteBuffer buffer;
+        private long count;
+
+        public Writer(String file, int dimension) throws IOException {
+            this.dimension = dimension;
+            this.bitsPerTile = Board.bitsPerTile(dimension);
+            int recordLongs = recordLongs(dimension);
+            channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(MAGIC).putInt(dimension).putInt(recordLongs).putInt(0).putLong(0L);
+        }
+
+        public void add(Board board) throws IOException {
+            if (board.dimension() != dimension) {
+                throw new IllegalArgumentException("a board of dimension " + board.dimension() + " in an archive of " + dimension);
+            }
+            int tilesPerWord = Long.SIZE / bitsPerTile;
+            int tiles = dimension * dimension;
+            if (buffer.remaining() < recordLongs(dimension) * Long.BYTES) flush();
+            for (int first = 0; first < tiles; first += tilesPerWord) {
+                long word = 0L;
+                for (int k = 0; k < tilesPerWord && first + k < tiles; k++) {
+                    word |= (long) board.tileAt(first + k) << (k * bitsPerTile);
+                }
+                buffer.putLong(word);
+            }
+            count++;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                buffer.putLong(count).flip();
+                channel.write(buffer, 16);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // the outcome of each board of an archive, in the order of the archive
+    public static final class ResultWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long count;
+
+        public ResultWriter(String file) throws IOException {
+            channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.putInt(RESULTS_MAGIC).putInt(0).putLong(0L);
+        }
+
+        // moves of the solution, -1 unsolvable or -2 not solved, and the time it took
+        public void add(int moves, long nanos) throws IOException {
+            if (buffer.remaining() < Integer.BYTES + Long.BYTES) flush();
+            buffer.putInt(moves).putLong(nanos);
+            count++;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                buffer.putLong(count).flip();
+                channel.write(buffer, 8);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // convert text puzzles to an archive, or list the boards of an archive
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("convert")) {
+            int dimension = PuzzleChecker.readBoard(args[2]).dimension();
+            try (Writer writer = new Writer(args[1], dimension)) {
+                for (int k = 2; k < args.length; k++) writer.add(PuzzleChecker.readBoard(args[k]));
+            }
+            StdOut.println((args.length - 2) + " boards written to " + args[1]);
+        } else if (args.length == 2 && args[0].equals("list")) {
+            PuzzleArchive archive = open(args[1]);
+            archive.boards().forEach(StdOut::println);
+        } else {
+            System.err.println("usage: java PuzzleArchive convert archive files... | list archive");
+        }
+    }
+}
@@ -0,0 +1,155 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+// Solves a batch of puzzle files concurrently on a fork-join pool of a fixed number of workers.
+// Every puzzle gets its own SearchBudget (time, nodes and frontier), a puzzle over budget is reported and the
+// batch goes on. Results are printed in the order of the input files, or as soon as they complete
+// when streaming, followed by the throughput of the batch and its p50/p99 solve latency. With a results file
+// the moves and latency of each puzzle are written to it in the order of the input files, see PuzzleArchive.
+// -stats, -stats=csv and -stats=json print what each search did as PuzzleChecker does.
+//
+// % java PuzzleChecker -threads=4 -timeout=10000 -max-nodes=20000000 SampleData/*.txt
+class PuzzleBatch {
+    private final SolverEngine engine;
+    private final Heuristic heuristic;
+    private final int threads;
+    private final long timeoutMillis;
+    private final long maxNodes;
+    private final long maxFrontier;
+    private final boolean streaming;
+    private final SolutionCache cache; // shared by the workers, may be null
+    private final String stats; // null, "text", "csv" or "json"
+    private final String resultsFile; // may be null
+
+    PuzzleBatch(SolverEngine engine, Heuristic heuristic, int threads, long timeoutMillis, long maxNodes,
+                long maxFrontier, boolean streaming, SolutionCache cache, String stats,
+                String resultsFile) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive");
+        this.engine = engine;
+        this.heuristic = heuristic;
+        this.threads = threads;
+        this.timeoutMillis = timeoutMillis;
+        this.maxNodes = maxNodes;
+        this.maxFrontier = maxFrontier;
+        this.streaming = streaming;
+        this.cache = cache;
+        this.stats = stats;
+        this.resultsFile = resultsFile;
+    }
+
+    // solve every file and print the results then the summary of the batch
+    void run(List<String> filenames) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        List<CompletableFuture<Result>> futures = new ArrayList<>(filenames.size());
+        if ("csv".equals(stats)) StdOut.println("file,moves," + SearchStatistics.csvHeader());
+        try {
+            for (String filename : filenames) {
+                CompletableFuture<Result> future = CompletableFuture.supplyAsync(() -> solve(filename), pool);
+                // join the printing stage too, or the summary could come out before the last streamed lines
+                if (streaming) {
+                    future = future.thenApply(result -> {
+                        print(result);
+                        return result;
+                    });
+                }
+                futures.add(future);
+            }
+            List<Result> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<Result> future : futures) {
+                Result result = future.join();
+                if (!streaming) print(result);
+                results.add(result);
+            }
+            summarize(results, System.nanoTime() - start);
+            if (resultsFile != null) writeResults(results);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // solve one puzzle, never throws so one bad file does not stop the batch
+    private Result solve(String filename) {
+        long start = System.nanoTime();
+        try {
+            Board initial = PuzzleChecker.readBoard(filename);
+            SolveResult result = engine.trySolve(initial, heuristic,
+                    SearchBudget.of(timeoutMillis, maxNodes, maxFrontier, null), null, 1, cache);
+            String failure = result.isComplete() ? null : "not solved: " + result;
+            return new Result(filename, result.moves(), System.nanoTime() - start, failure, result);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            return new Result(filename, -1, System.nanoTime() - start, "failed: " + e, null);
+        }
+    }
+
+    private synchronized void print(Result result) {
+        if ("csv".equals(stats) || "json".equals(stats)) {
+            SolveStatus status = result.result == null ? null : result.result.status();
+            SearchStatistics statistics = result.result == null ? null : result.result.statistics();
+            StdOut.println(PuzzleChecker.statisticsRow(stats, result.filename, status, result.writtenMoves(),
+                    statistics));
+            return;
+        }
+        if (result.failure == null) StdOut.println(result.filename + " takes " + result.moves + " moves to get solved");
+        else StdOut.println(result.filename + " " + result.failure);
+        if (stats != null && result.result != null && result.result.statistics() != null) {
+            StdOut.println(" " + result.result.statistics());
+        }
+    }
+
+    private void summarize(List<Result> results, long elapsedNanos) {
+        long[] latencies = new long[results.size()];
+        int failures = 0;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = results.get(i).nanos;
+            if (results.get(i).failure != null) failures++;
+        }
+        Arrays.sort(latencies);
+        double seconds = elapsedNanos / 1e9;
+        StdOut.printf("%d puzzles on %d threads in %.3f s: %.1f puzzles/s, p50 %.2f ms, p99 %.2f ms, %d not solved%n",
+                latencies.length, threads, seconds, latencies.length / seconds,
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, failures);
+    }
+
+    private void writeResults(List<Result> results) throws IOException {
+        try (PuzzleArchive.ResultWriter writer = new PuzzleArchive.ResultWriter(resultsFile)) {
+            for (Result result : results) {
+                writer.add(result.writtenMoves(), result.nanos);
+            }
+        }
+    }
+
+    // nearest-rank percentile of sorted values
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static final class Result {
+        final String filename;
+        final int moves;
+        final long nanos; // solve latency, reading the file included
+        final String failure; // null when solved or found unsolvable
+        final SolveResult result; // null when the puzzle failed
+
+        Result(String filename, int moves, long nanos, String failure, SolveResult result) {
+            this.filename = filename;
+            this.moves = moves;
+            this.nanos = nanos;
+            this.failure = failure;
+            this.result = result;
+        }
+
+        // the moves reported for the puzzle, a puzzle not solved or failed counts as PuzzleChecker.NOT_SOLVED
+        int writtenMoves() {
+            return failure == null ? moves : PuzzleChecker.NOT_SOLVED;
+        }
+    }
+}
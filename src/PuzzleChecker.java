@@ -1,29 +1,185 @@
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class PuzzleChecker {
+    private static final int CACHE_ENTRIES = 1 << 20;
+    private static final long CACHE_BYTES = 256L << 20;
+    static final String ARCHIVE = ".pzb";
+    static final int NOT_SOLVED = -2;
+    // the archives the boards named file.pzb#i are read from, mapped once
+    private static final Map<String, PuzzleArchive> ARCHIVES = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        // A* unless another engine is asked for with -engine=ida or -engine=arena
+        SolverEngine engine = SolverEngine.ASTAR;
+        // Manhattan unless another heuristic is asked for with -heuristic=linear or -heuristic=pdb:file
+        Heuristic heuristic = StandardHeuristic.MANHATTAN;
+        // -threads=N solves the files concurrently, see PuzzleBatch for the other batch options
+        int threads = 0;
+        long timeoutMillis = 0;
+        long maxNodes = 0;
+        long maxFrontier = 0;
+        boolean streaming = false;
+        // -stats prints what each search did, -stats=csv and -stats=json print it for other programs
+        String stats = null;
+        // -progress=N prints the state of the search every N expansions, one file at a time only
+        int progress = 0;
+        // -cache=file answers the boards solved before from file and saves the new solutions to it
+        String cacheFile = null;
+        // -results=file writes the moves and time of each board to file, see PuzzleArchive
+        String resultsFile = null;
+        List<String> filenames = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("-engine=")) {
+                engine = SolverEngine.parse(arg.substring("-engine=".length()));
+            } else if (arg.startsWith("-heuristic=")) {
+                String name = arg.substring("-heuristic=".length());
+                if (name.startsWith("pdb:")) heuristic = PatternDatabase.load(name.substring("pdb:".length()));
+                else heuristic = StandardHeuristic.parse(name);
+            } else if (arg.startsWith("-threads=")) {
+                threads = Integer.parseInt(arg.substring("-threads=".length()));
+            } else if (arg.startsWith("-timeout=")) {
+                timeoutMillis = Long.parseLong(arg.substring("-timeout=".length()));
+            } else if (arg.startsWith("-max-nodes=")) {
+                maxNodes = Long.parseLong(arg.substring("-max-nodes=".length()));
+            } else if (arg.startsWith("-max-frontier=")) {
+                maxFrontier = Long.parseLong(arg.substring("-max-frontier=".length()));
+            } else if (arg.equals("-stream")) {
+                streaming = true;
+            } else if (arg.equals("-stats") || arg.startsWith("-stats=")) {
+                stats = arg.equals("-stats") ? "text" : arg.substring("-stats=".length());
+                if (!stats.equals("text") && !stats.equals("csv") && !stats.equals("json"))
+                    throw new IllegalArgumentException("unknown stats format " + stats);
+            } else if (arg.startsWith("-cache=")) {
+                cacheFile = arg.substring("-cache=".length());
+            } else if (arg.startsWith("-progress=")) {
+                progress = Integer.parseInt(arg.substring("-progress=".length()));
+            } else if (arg.startsWith("-results=")) {
+                resultsFile = arg.substring("-results=".length());
+            } else if (arg.endsWith(ARCHIVE)) {
+                // every board of an archive, as file.pzb#0, file.pzb#1...
+                int size = archive(arg).size();
+                for (int i = 0; i < size; i++) filenames.add(arg + "#" + i);
+            } else {
+                filenames.add(arg);
+            }
+        }
+
+        SolutionCache cache = null;
+        if (cacheFile != null) {
+            cache = new SolutionCache(CACHE_ENTRIES, CACHE_BYTES);
+            if (new File(cacheFile).exists()) cache.load(cacheFile);
+        }
 
-    public static void main(String[] args) {
+        if (threads > 0) {
+            // the progress lines of concurrent searches would interleave
+            if (progress > 0) throw new IllegalArgumentException("-progress cannot be used with -threads");
+            new PuzzleBatch(engine, heuristic, threads, timeoutMillis, maxNodes, maxFrontier, streaming, cache,
+                    stats, resultsFile).run(filenames);
+        } else {
+            check(filenames, engine, heuristic, timeoutMillis, maxNodes, maxFrontier, stats, progress, cache,
+                    resultsFile);
+        }
+
+        if (cache != null) {
+            cache.save(cacheFile);
+            StdOut.println("cache " + cache);
+        }
+    }
+
+    // the line of -stats=csv or -stats=json for one file, status may be null when the search failed
+    static String statisticsRow(String stats, String filename, SolveStatus status, int moves,
+                                SearchStatistics statistics) {
+        if ("csv".equals(stats)) return filename + "," + moves + "," + (statistics == null ? "" : statistics.toCsv());
+        return "{\"file\":\"" + filename.replace("\\", "\\\\").replace("\"", "\\\"") + "\",\"status\":"
+                + (status == null ? "null" : "\"" + status + "\"") + ",\"moves\":" + moves + ",\"statistics\":"
+                + (statistics == null ? "null" : statistics.toJson()) + "}";
+    }
+
+    // solve the files one after the other and print their solutions or statistics
+    private static void check(List<String> filenames, SolverEngine engine, Heuristic heuristic, long timeoutMillis,
+                              long maxNodes, long maxFrontier, String stats, int progress, SolutionCache cache,
+                              String resultsFile) throws IOException {
+        SearchListener listener = null;
+        if (progress > 0) {
+            listener = (expanded, frontier, bestF, depth, elapsedNanos) -> StdOut.printf(
+                    " %d expanded, frontier %d, f %d, depth %d, %.3f s%n", expanded, frontier, bestF, depth,
+                    elapsedNanos / 1e9);
+        }
+        if ("csv".equals(stats)) StdOut.println("file,moves," + SearchStatistics.csvHeader());
+        PuzzleArchive.ResultWriter results = resultsFile == null ? null : new PuzzleArchive.ResultWriter(resultsFile);
 
         // for each command-line argument
-        for (String filename : args) {
-
-            // read in the board specified in the filename
-            In in = new In(filename);
-            int n = in.readInt();
-            int[][] tiles = new int[n][n];
-            for (int i = 0; i < n; i++) {
-                for (int j = 0; j < n; j++) {
-                    tiles[i][j] = in.readInt();
+        try {
+            for (String filename : filenames) {
+
+                // solve the slider puzzle, a search stopped by the budget counts as -2 moves
+                Board initial = readBoard(filename);
+                long start = System.nanoTime();
+                SolveResult result = engine.trySolve(initial, heuristic,
+                        SearchBudget.of(timeoutMillis, maxNodes, maxFrontier, null), listener, Math.max(progress, 1),
+                        cache);
+                int moves = result.isComplete() ? result.moves() : NOT_SOLVED;
+                SearchStatistics statistics = result.statistics();
+                if (results != null) results.add(moves, System.nanoTime() - start);
+                if ("csv".equals(stats) || "json".equals(stats)) {
+                    StdOut.println(statisticsRow(stats, filename, result.status(), moves, statistics));
+                    continue;
                 }
-            }
+                if (!result.isComplete()) {
+                    StdOut.println(filename + " not solved: " + result);
+                    if (stats != null && statistics != null) StdOut.println(" " + statistics);
+                    continue;
+                }
+                PuzzleSolver solver = result.solver();
+                StdOut.println(filename + " takes " + solver.moves() + " moves to get solved");
+                if (solver instanceof AnytimeSolver && !((AnytimeSolver) solver).isOptimal()) {
+                    StdOut.printf(" at most %.2f times the shortest solution%n",
+                            ((AnytimeSolver) solver).suboptimalityBound());
+                }
+                if (stats != null) StdOut.println(" " + solver.statistics());
+                StdOut.println(" solution() " + solver.solution());
 
-            // solve the slider puzzle
-            Board initial = new Board(tiles);
-            Solver solver = new Solver(initial);
-            StdOut.println(filename + " takes " + solver.moves() + " moves to get solved");
-            StdOut.println(" solution() " + solver.solution());
+            }
+        } finally {
+            if (results != null) results.close();
+        }
+    }
 
+    // read in the board specified in the filename, or board i of an archive named file.pzb#i
+    static Board readBoard(String filename) {
+        int mark = filename.lastIndexOf(ARCHIVE + "#");
+        if (mark >= 0) {
+            int end = mark + ARCHIVE.length();
+            return archive(filename.substring(0, end)).board(Integer.parseInt(filename.substring(end + 1)));
+        }
+        In in = new In(filename);
+        int n = in.readInt();
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                tiles[i][j] = in.readInt();
+            }
         }
+        return new Board(tiles);
+    }
+
+    private static PuzzleArchive archive(String file) {
+        return ARCHIVES.computeIfAbsent(file, name -> {
+            try {
+                return PuzzleArchive.open(name);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Load test of a PuzzleServer: clients threads post the boards of the files round robin, each one waiting
+// for its answer before sending the next, until requests have been sent. Prints the throughput, the
+// p50/p99 latency seen by the clients and how many requests were turned away by the backpressure.
+//
+// % java PuzzleLoadClient -port=8080 -clients=32 -requests=10000 SampleData/puzzle4x4-2*.txt
+public class PuzzleLoadClient {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 8080;
+        int clients = 8;
+        int requests = 1000;
+        List<String> boards = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("-port=")) {
+                port = Integer.parseInt(arg.substring("-port=".length()));
+            } else if (arg.startsWith("-clients=")) {
+                clients = Integer.parseInt(arg.substring("-clients=".length()));
+            } else if (arg.startsWith("-requests=")) {
+                requests = Integer.parseInt(arg.substring("-requests=".length()));
+            } else {
+                boards.add(new String(Files.readAllBytes(Paths.get(arg)), StandardCharsets.US_ASCII));
+            }
+        }
+        if (boards.isEmpty() || clients < 1 || requests < 1) {
+            System.err.println("usage: java PuzzleLoadClient [-port=N] [-clients=N] [-requests=N] files...");
+            return;
+        }
+
+        URL url = new URL("http://localhost:" + port + "/solve");
+        int total = requests;
+        AtomicInteger next = new AtomicInteger();
+        long[] latencies = new long[total];
+        int[] statuses = new int[total];
+        Thread[] threads = new Thread[clients];
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            threads[c] = new Thread(() -> {
+                for (int k = next.getAndIncrement(); k < total; k = next.getAndIncrement()) {
+                    long sent = System.nanoTime();
+                    statuses[k] = post(url, boards.get(k % boards.size()));
+                    latencies[k] = System.nanoTime() - sent;
+                }
+            });
+            threads[c].start();
+        }
+        for (Thread thread : threads) thread.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int ok = 0;
+        int rejected = 0;
+        for (int status : statuses) {
+            if (status == 200) ok++;
+            else if (status == 503) rejected++;
+        }
+        Arrays.sort(latencies);
+        StdOut.printf("%d requests from %d clients in %.3f s: %.1f requests/s, p50 %.2f ms, p99 %.2f ms, "
+                        + "%d solved, %d rejected, %d failed%n", total, clients, seconds, total / seconds,
+                PuzzleBatch.percentile(latencies, 0.50) / 1e6, PuzzleBatch.percentile(latencies, 0.99) / 1e6,
+                ok, rejected, total - ok - rejected);
+    }
+
+    // post board and return the status of the answer, -1 when the server could not be reached
+    private static int post(URL url, String board) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(board.getBytes(StandardCharsets.US_ASCII));
+            }
+            int status = connection.getResponseCode();
+            // read the answer to the end so the connection is kept alive for the next request
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (in != null) {
+                try (InputStream body = in) {
+                    body.readAllBytes();
+                }
+            }
+            return status;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// A long-running solver on the loopback interface, so a client pays the JVM start and the JIT warm-up once.
+//
+// POST /solve takes a board in the text format of the SampleData files and answers a JSON object with its
+// status (see SolveStatus), moves, the moves of the blank square as letters (see MoveSequence) and the search
+// statistics, a search stopped by the budget answers 422 with its partial statistics. The request
+// is queued and answered by a worker: the queue is bounded and a request arriving when it is full is turned
+// away at once with 503, the client is expected to retry later. A dispatcher thread takes the requests off
+// the queue in batches of at most BATCH, a board asked for several times in one batch is solved once, and
+// hands each board to a worker as soon as one is free. Solutions are kept in a SolutionCache shared by the
+// workers.
+//
+// GET /metrics answers the queue depth, the solves in flight, the counts of requests by outcome and a
+// histogram of the latency from arrival to response, in the Prometheus text format.
+//
+// % java PuzzleServer -port=8080 -threads=4 -queue=1024 -timeout=10000
+// % curl --data-binary @SampleData/puzzle4x4-30.txt localhost:8080/solve
+// % java PuzzleLoadClient -port=8080 -clients=32 -requests=10000 SampleData/puzzle4x4-2*.txt
+public class PuzzleServer {
+    private static final int BATCH = 64;
+    private static final int MAX_BODY = 1 << 20;
+    private static final int CACHE_ENTRIES = 1 << 16;
+    private static final long CACHE_BYTES = 64L << 20;
+    // upper bounds of the latency histogram buckets in milliseconds, the last bucket has none
+    private static final long[] BUCKETS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final SolverEngine engine;
+    private final Heuristic heuristic;
+    private final long timeoutMillis;
+    private final long maxNodes;
+    private final long maxFrontier;
+    private final BlockingQueue<Request> queue;
+    private final Semaphore idleWorkers;
+    private final ExecutorService workers;
+    private final SolutionCache cache = new SolutionCache(CACHE_ENTRIES, CACHE_BYTES);
+    private final HttpServer server;
+    private final Thread dispatcher;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLongArray latencyCounts = new AtomicLongArray(BUCKETS_MILLIS.length + 1);
+    private final LongAdder latencySumNanos = new LongAdder();
+
+    PuzzleServer(int port, SolverEngine engine, Heuristic heuristic, int threads, int capacity, long timeoutMillis,
+                 long maxNodes, long maxFrontier) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive");
+        if (capacity < 1) throw new IllegalArgumentException("queue must be positive");
+        this.engine = engine;
+        this.heuristic = heuristic;
+        this.timeoutMillis = timeoutMillis;
+        this.maxNodes = maxNodes;
+        this.maxFrontier = maxFrontier;
+        queue = new ArrayBlockingQueue<>(capacity);
+        idleWorkers = new Semaphore(threads);
+        workers = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // the handlers only parse and queue, the answers are sent by the workers
+        server.setExecutor(Executors.newFixedThreadPool(2));
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/metrics", this::handleMetrics);
+        dispatcher = new Thread(this::dispatch, "puzzle-dispatcher");
+        dispatcher.setDaemon(true);
+    }
+
+    void start() {
+        dispatcher.start();
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        dispatcher.interrupt();
+        workers.shutdownNow();
+    }
+
+    // the port the server listens on, the one chosen by the system when 0 was asked for
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long arrival = System.nanoTime();
+        if (!exchange.getRequestMethod().equals("POST")) {
+            respond(exchange, 405, "{\"error\":\"POST a board\"}", arrival);
+            return;
+        }
+        Board board;
+        try {
+            board = parseBoard(readBody(exchange.getRequestBody()));
+        } catch (IllegalArgumentException e) {
+            invalid.increment();
+            respond(exchange, 400, "{\"error\":\"" + escape(e.getMessage()) + "\"}", arrival);
+            return;
+        }
+        if (!queue.offer(new Request(board, exchange, arrival))) {
+            rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 503, "{\"error\":\"queue full\"}", arrival);
+        }
+    }
+
+    // take the requests off the queue by batches and give each distinct board to the next idle worker
+    private void dispatch() {
+        List<Request> batch = new ArrayList<>(BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH - 1);
+                batches.increment();
+                Map<Board, List<Request>> boards = new LinkedHashMap<>();
+                for (Request request : batch) boards.computeIfAbsent(request.board, b -> new ArrayList<>()).add(request);
+                batch.clear();
+                for (Map.Entry<Board, List<Request>> entry : boards.entrySet()) {
+                    idleWorkers.acquire();
+                    inFlight.incrementAndGet();
+                    workers.execute(() -> {
+                        try {
+                            solve(entry.getKey(), entry.getValue());
+                        } finally {
+                            inFlight.decrementAndGet();
+                            idleWorkers.release();
+                        }
+                    });
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // solve board and answer every request for it, never throws so a bad board does not stop a worker
+    private void solve(Board board, List<Request> requests) {
+        int status;
+        String body;
+        try {
+            SolveResult result = engine.trySolve(board, heuristic,
+                    SearchBudget.of(timeoutMillis, maxNodes, maxFrontier, null), null, 1, cache);
+            SearchStatistics statistics = result.statistics();
+            String json = statistics == null ? "null" : statistics.toJson();
+            if (result.isComplete()) {
+                status = 200;
+                MoveSequence moves = result.solver().moveSequence();
+                body = "{\"status\":\"" + result.status() + "\",\"moves\":" + result.moves() + ",\"solution\":"
+                        + (moves == null ? "null" : "\"" + moves + "\"") + ",\"statistics\":" + json + "}";
+                solved.add(requests.size());
+            } else {
+                // the search stopped on the budget, its statistics tell how far it got
+                status = 422;
+                body = "{\"status\":\"" + result.status() + "\",\"error\":\"" + escape(result.message())
+                        + "\",\"statistics\":" + json + "}";
+                failed.add(requests.size());
+            }
+        } catch (RuntimeException | OutOfMemoryError e) {
+            status = 500;
+            body = "{\"error\":\"" + escape(e.toString()) + "\"}";
+            failed.add(requests.size());
+        }
+        for (Request request : requests) {
+            try {
+                respond(request.exchange, status, body, request.arrival);
+            } catch (IOException e) {
+                // the client went away, nothing to answer
+            }
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        StringBuilder s = new StringBuilder();
+        s.append("puzzle_queue_depth ").append(queue.size()).append('\n');
+        s.append("puzzle_queue_capacity ").append(queue.size() + queue.remainingCapacity()).append('\n');
+        s.append("puzzle_in_flight ").append(inFlight.get()).append('\n');
+        s.append("puzzle_batches_total ").append(batches.sum()).append('\n');
+        s.append("puzzle_requests_total{outcome=\"solved\"} ").append(solved.sum()).append('\n');
+        s.append("puzzle_requests_total{outcome=\"rejected\"} ").append(rejected.sum()).append('\n');
+        s.append("puzzle_requests_total{outcome=\"invalid\"} ").append(invalid.sum()).append('\n');
+        s.append("puzzle_requests_total{outcome=\"failed\"} ").append(failed.sum()).append('\n');
+        s.append("puzzle_cache_entries ").append(cache.size()).append('\n');
+        s.append("puzzle_cache_hit_rate ").append(cache.hitRate()).append('\n');
+        long count = 0;
+        for (int bucket = 0; bucket < BUCKETS_MILLIS.length; bucket++) {
+            count += latencyCounts.get(bucket);
+            s.append("puzzle_latency_seconds_bucket{le=\"").append(BUCKETS_MILLIS[bucket] / 1e3).append("\"} ")
+                    .append(count).append('\n');
+        }
+        count += latencyCounts.get(BUCKETS_MILLIS.length);
+        s.append("puzzle_latency_seconds_bucket{le=\"+Inf\"} ").append(count).append('\n');
+        s.append("puzzle_latency_seconds_sum ").append(latencySumNanos.sum() / 1e9).append('\n');
+        s.append("puzzle_latency_seconds_count ").append(count).append('\n');
+        byte[] bytes = s.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // send body and record the latency of the request
+    private void respond(HttpExchange exchange, int status, String body, long arrival) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+            long nanos = System.nanoTime() - arrival;
+            latencySumNanos.add(nanos);
+            int bucket = 0;
+            while (bucket < BUCKETS_MILLIS.length && nanos > BUCKETS_MILLIS[bucket] * 1_000_000) bucket++;
+            latencyCounts.incrementAndGet(bucket);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY + 1);
+        if (body.length > MAX_BODY) throw new IllegalArgumentException("board too large");
+        return new String(body, StandardCharsets.US_ASCII);
+    }
+
+    // the board of a SampleData file: the dimension n then the n * n tiles, 0 for the blank square
+    static Board parseBoard(String text) {
+        String[] tokens = text.trim().split("\\s+");
+        try {
+            int n = Integer.parseInt(tokens[0]);
+            if (n < 2 || n >= 128) throw new IllegalArgumentException("dimension " + n);
+            if (tokens.length != 1 + n * n) throw new IllegalArgumentException("expected " + n * n + " tiles");
+            boolean[] seen = new boolean[n * n];
+            int[][] tiles = new int[n][n];
+            for (int index = 0; index < n * n; index++) {
+                int tile = Integer.parseInt(tokens[1 + index]);
+                if (tile < 0 || tile >= n * n || seen[tile]) throw new IllegalArgumentException("tile " + tile);
+                seen[tile] = true;
+                tiles[index / n][index % n] = tile;
+            }
+            return new Board(tiles);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + e.getMessage());
+        }
+    }
+
+    private static String escape(String s) {
+        return s == null ? "" : s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    // a board waiting for a worker and the exchange to answer
+    private static final class Request {
+        final Board board;
+        final HttpExchange exchange;
+        final long arrival;
+
+        Request(Board board, HttpExchange exchange, long arrival) {
+            this.board = board;
+            this.exchange = exchange;
+            this.arrival = arrival;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        SolverEngine engine = SolverEngine.ASTAR;
+        Heuristic heuristic = StandardHeuristic.MANHATTAN;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int capacity = 1024;
+        long timeoutMillis = 10_000;
+        long maxNodes = 0;
+        long maxFrontier = 0;
+        for (String arg : args) {
+            if (arg.startsWith("-port=")) {
+                port = Integer.parseInt(arg.substring("-port=".length()));
+            } else if (arg.startsWith("-engine=")) {
+                engine = SolverEngine.parse(arg.substring("-engine=".length()));
+            } else if (arg.startsWith("-heuristic=")) {
+                String name = arg.substring("-heuristic=".length());
+                if (name.startsWith("pdb:")) heuristic = PatternDatabase.load(name.substring("pdb:".length()));
+                else heuristic = StandardHeuristic.parse(name);
+            } else if (arg.startsWith("-threads=")) {
+                threads = Integer.parseInt(arg.substring("-threads=".length()));
+            } else if (arg.startsWith("-queue=")) {
+                capacity = Integer.parseInt(arg.substring("-queue=".length()));
+            } else if (arg.startsWith("-timeout=")) {
+                timeoutMillis = Long.parseLong(arg.substring("-timeout=".length()));
+            } else if (arg.startsWith("-max-nodes=")) {
+                maxNodes = Long.parseLong(arg.substring("-max-nodes=".length()));
+            } else if (arg.startsWith("-max-frontier=")) {
+                maxFrontier = Long.parseLong(arg.substring("-max-frontier=".length()));
+            } else {
+                System.err.println("usage: java PuzzleServer [-port=N] [-engine=name] [-heuristic=name] "
+                        + "[-threads=N] [-queue=N] [-timeout=millis] [-max-nodes=N] [-max-frontier=N]");
+                return;
+            }
+        }
+        PuzzleServer server = new PuzzleServer(port, engine, heuristic, threads, capacity, timeoutMillis, maxNodes,
+                maxFrontier);
+        server.start();
+        StdOut.println("solving on http://localhost:" + server.port() + "/solve with " + threads + " workers");
+    }
+}
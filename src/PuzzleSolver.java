@@ -0,0 +1,18 @@
+// what every solver engine answers about the board it was given
+public interface PuzzleSolver {
+
+    // is the initial board solvable?
+    boolean isSolvable();
+
+    // min number of moves to solve initial board, -1 if unsolvable
+    int moves();
+
+    // sequence of boards in a shortest solution, null if unsolvable
+    Iterable<Board> solution();
+
+    // the moves of the blank square in a shortest solution, null if unsolvable
+    MoveSequence moveSequence();
+
+    // what the search did to find the solution
+    SearchStatistics statistics();
+}
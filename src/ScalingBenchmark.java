@@ -0,0 +1,263 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Runs solver engines over a sweep of board sizes and depths of InstanceGenerator boards, the same boards for
+// every engine, and reports for each cell the boards solved within the budget, the mean moves, the p50/p99
+// time to solution, the nodes expanded per second and the peak heap. -csv prints the cells as CSV, and such
+// a file given back with -baseline=file reports the cells that got slower than it by more than -tolerance
+// (0.2 by default) and exits with status 1, so a sweep can guard the workloads we care about. A cell whose
+// searches expanded no node, the 3x3 boards A* answers from EightPuzzleTable for instance, has no nodes/s.
+//
+// % java ScalingBenchmark -engines=astar,arena,ida -sizes=3,4 -depths=20,30,40 -count=20 -csv > base.csv
+// % java ScalingBenchmark -engines=astar,arena,ida -sizes=3,4 -depths=20,30,40 -count=20 -baseline=base.csv
+class ScalingBenchmark {
+    private final List<SolverEngine> engines;
+    private final Heuristic heuristic;
+    private final int count;
+    private final long seed;
+    private final long timeoutMillis;
+    private final long maxNodes;
+
+    ScalingBenchmark(List<SolverEngine> engines, Heuristic heuristic, int count, long seed, long timeoutMillis,
+                     long maxNodes) {
+        if (count < 1) throw new IllegalArgumentException("count must be positive");
+        this.engines = engines;
+        this.heuristic = heuristic;
+        this.count = count;
+        this.seed = seed;
+        this.timeoutMillis = timeoutMillis;
+        this.maxNodes = maxNodes;
+    }
+
+    // solve the boards of one size and depth with engine
+    Cell measure(SolverEngine engine, int dimension, int depth) {
+        Board[] boards = new InstanceGenerator(dimension, depth, seed).boards(count).toArray(Board[]::new);
+        List<MemoryPoolMXBean> pools = heapPools();
+        // start the peak from the live data of the harness, not from the garbage of the cell before
+        System.gc();
+        for (MemoryPoolMXBean pool : pools) pool.resetPeakUsage();
+        long[] nanos = new long[boards.length];
+        long expanded = 0;
+        long searchNanos = 0;
+        long moves = 0;
+        int solved = 0;
+        for (int k = 0; k < boards.length; k++) {
+            long start = System.nanoTime();
+            SolveResult result = engine.trySolve(boards[k], heuristic,
+                    SearchBudget.of(timeoutMillis, maxNodes, 0, null));
+            nanos[k] = System.nanoTime() - start;
+            searchNanos += nanos[k];
+            if (result.statistics() != null) expanded += result.statistics().expanded();
+            if (result.status() == SolveStatus.SOLVED) {
+                solved++;
+                moves += result.moves();
+            }
+        }
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) peak += pool.getPeakUsage().getUsed();
+        Arrays.sort(nanos);
+        double nodesPerSecond = expanded == 0 ? Double.NaN : expanded / (searchNanos / 1e9);
+        return new Cell(engine.name().toLowerCase(), dimension, depth, boards.length, solved,
+                solved == 0 ? 0 : (double) moves / solved, PuzzleBatch.percentile(nanos, 0.50) / 1e6,
+                PuzzleBatch.percentile(nanos, 0.99) / 1e6, nodesPerSecond, peak);
+    }
+
+    // one unreported cell per engine, so the JIT has compiled it before the sweep
+    void warmUp(int dimension, int depth) {
+        for (SolverEngine engine : engines) measure(engine, dimension, depth);
+    }
+
+    // the heap pools (the sum of their peaks bounds the peak of the whole heap from above)
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pools.add(pool);
+        }
+        return pools;
+    }
+
+    // the cells of a -csv run, by engine, dimension and depth
+    static Map<String, Cell> readCsv(String file) throws IOException {
+        Map<String, Cell> cells = new HashMap<>();
+        for (String line : Files.readAllLines(Paths.get(file))) {
+            if (line.isEmpty() || line.startsWith(Cell.CSV_HEADER)) continue;
+            Cell cell = Cell.parse(line);
+            cells.put(cell.key(), cell);
+        }
+        return cells;
+    }
+
+    // the cells that expand fewer nodes per second or take more time than their baseline, by more than tolerance
+    static List<String> regressions(List<Cell> cells, Map<String, Cell> baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Cell cell : cells) {
+            Cell before = baseline.get(cell.key());
+            if (before == null) continue;
+            // no nodes/s to compare for the cells answered without a search
+            boolean searched = !Double.isNaN(cell.nodesPerSecond) && !Double.isNaN(before.nodesPerSecond);
+            if (searched && cell.nodesPerSecond < before.nodesPerSecond * (1 - tolerance)) {
+                regressions.add(String.format(Locale.ROOT, "%s: %.0f nodes/s, %.0f before", cell.key(),
+                        cell.nodesPerSecond, before.nodesPerSecond));
+            }
+            if (cell.p50Millis > before.p50Millis * (1 + tolerance)) {
+                regressions.add(String.format(Locale.ROOT, "%s: p50 %.3f ms, %.3f ms before", cell.key(),
+                        cell.p50Millis, before.p50Millis));
+            }
+            if (cell.solved < before.solved) {
+                regressions.add(String.format(Locale.ROOT, "%s: %d solved, %d before", cell.key(), cell.solved,
+                        before.solved));
+            }
+        }
+        return regressions;
+    }
+
+    // what one engine did on the boards of one size and depth
+    static final class Cell {
+        static final String CSV_HEADER = "engine,dimension,depth,boards,solved,meanMoves,p50Millis,p99Millis,"
+                + "nodesPerSecond,peakHeapBytes";
+
+        final String engine;
+        final int dimension;
+        final int depth; // InstanceGenerator.UNIFORM for uniformly random boards
+        final int boards;
+        final int solved;
+        final double meanMoves; // of the boards solved
+        final double p50Millis;
+        final double p99Millis;
+        final double nodesPerSecond; // NaN when no node was expanded
+        final long peakHeapBytes;
+
+        Cell(String engine, int dimension, int depth, int boards, int solved, double meanMoves, double p50Millis,
+             double p99Millis, double nodesPerSecond, long peakHeapBytes) {
+            this.engine = engine;
+            this.dimension = dimension;
+            this.depth = depth;
+            this.boards = boards;
+            this.solved = solved;
+            this.meanMoves = meanMoves;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.nodesPerSecond = nodesPerSecond;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        static Cell parse(String line) {
+            String[] fields = line.split(",");
+            if (fields.length != 10) throw new IllegalArgumentException("not a scaling benchmark row: " + line);
+            return new Cell(fields[0], Integer.parseInt(fields[1]), parseDepth(fields[2]),
+                    Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Double.parseDouble(fields[5]),
+                    Double.parseDouble(fields[6]), Double.parseDouble(fields[7]), Double.parseDouble(fields[8]),
+                    Long.parseLong(fields[9]));
+        }
+
+        String key() {
+            return engine + " " + dimension + "x" + dimension + " depth " + depthName(depth);
+        }
+
+        String toCsv() {
+            // the CSV is read back by -baseline, whatever the locale of either run
+            return String.format(Locale.ROOT, "%s,%d,%s,%d,%d,%.2f,%.3f,%.3f,%.0f,%d", engine, dimension,
+                    depthName(depth), boards, solved, meanMoves, p50Millis, p99Millis, nodesPerSecond, peakHeapBytes);
+        }
+
+        @Override
+        public String toString() {
+            String rate = Double.isNaN(nodesPerSecond) ? "no search" : String.format("%.0f", nodesPerSecond);
+            return String.format("%-13s %3dx%-3d %7s %4d/%-4d %7.2f %10.3f %10.3f %12s %9.1f", engine, dimension,
+                    dimension, depthName(depth), solved, boards, meanMoves, p50Millis, p99Millis, rate,
+                    peakHeapBytes / (1024.0 * 1024.0));
+        }
+    }
+
+    private static String depthName(int depth) {
+        return depth == InstanceGenerator.UNIFORM ? "uniform" : String.valueOf(depth);
+    }
+
+    private static int parseDepth(String name) {
+        return name.equals("uniform") ? InstanceGenerator.UNIFORM : Integer.parseInt(name);
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<SolverEngine> engines = new ArrayList<>(Arrays.asList(SolverEngine.ASTAR, SolverEngine.ARENA,
+                SolverEngine.IDA_STAR));
+        Heuristic heuristic = StandardHeuristic.MANHATTAN;
+        int[] sizes = {3, 4};
+        // -depths=20,40,uniform, uniform for uniformly random boards
+        int[] depths = {10, 20, 30, 40};
+        int count = 10;
+        long seed = 1;
+        long timeoutMillis = 10000;
+        long maxNodes = 0;
+        boolean csv = false;
+        String baselineFile = null;
+        double tolerance = 0.2;
+        for (String arg : args) {
+            if (arg.startsWith("-engines=")) {
+                engines.clear();
+                for (String name : arg.substring("-engines=".length()).split(",")) {
+                    engines.add(SolverEngine.parse(name));
+                }
+            } else if (arg.startsWith("-heuristic=")) {
+                String name = arg.substring("-heuristic=".length());
+                if (name.startsWith("pdb:")) heuristic = PatternDatabase.load(name.substring("pdb:".length()));
+                else heuristic = StandardHeuristic.parse(name);
+            } else if (arg.startsWith("-sizes=")) {
+                sizes = Arrays.stream(arg.substring("-sizes=".length()).split(",")).mapToInt(Integer::parseInt)
+                        .toArray();
+            } else if (arg.startsWith("-depths=")) {
+                depths = Arrays.stream(arg.substring("-depths=".length()).split(","))
+                        .mapToInt(ScalingBenchmark::parseDepth).toArray();
+            } else if (arg.startsWith("-count=")) {
+                count = Integer.parseInt(arg.substring("-count=".length()));
+            } else if (arg.startsWith("-seed=")) {
+                seed = Long.parseLong(arg.substring("-seed=".length()));
+            } else if (arg.startsWith("-timeout=")) {
+                timeoutMillis = Long.parseLong(arg.substring("-timeout=".length()));
+            } else if (arg.startsWith("-max-nodes=")) {
+                maxNodes = Long.parseLong(arg.substring("-max-nodes=".length()));
+            } else if (arg.equals("-csv")) {
+                csv = true;
+            } else if (arg.startsWith("-baseline=")) {
+                baselineFile = arg.substring("-baseline=".length());
+            } else if (arg.startsWith("-tolerance=")) {
+                tolerance = Double.parseDouble(arg.substring("-tolerance=".length()));
+            } else {
+                throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+
+        ScalingBenchmark benchmark = new ScalingBenchmark(engines, heuristic, count, seed, timeoutMillis, maxNodes);
+        if (csv) StdOut.println(Cell.CSV_HEADER);
+        else StdOut.printf("%-13s %7s %7s %9s %7s %10s %10s %12s %9s%n", "engine", "size", "depth", "solved",
+                "moves", "p50 ms", "p99 ms", "nodes/s", "peak MB");
+        benchmark.warmUp(sizes[0], depths[0]);
+        List<Cell> cells = new ArrayList<>();
+        for (int dimension : sizes) {
+            for (int depth : depths) {
+                for (SolverEngine engine : engines) {
+                    Cell cell = benchmark.measure(engine, dimension, depth);
+                    StdOut.println(csv ? cell.toCsv() : cell.toString());
+                    cells.add(cell);
+                }
+            }
+        }
+
+        if (baselineFile != null) {
+            List<String> regressions = regressions(cells, readCsv(baselineFile), tolerance);
+            for (String regression : regressions) System.err.println("regression " + regression);
+            if (!regressions.isEmpty()) System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+// Limits on the work a single search may do: a wall-clock deadline, a number of nodes and a size of the
+// frontier, the nodes and the frontier a search keeps standing for the memory it uses, and an optional
+// CancellationToken. The solvers call check() once per expansion; the clock is only read every
+// CLOCK_INTERVAL calls so an unlimited budget costs next to nothing. Going over any of them throws a
+// BudgetExceededException whose status tells which, SolverEngine.trySolve() turns it into a SolveResult.
+public final class SearchBudget {
+    public static final SearchBudget UNLIMITED = new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, null);
+
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final long deadline; // System.nanoTime() the search must finish by
+    private final long maxNodes;
+    private final long maxFrontier;
+    private final CancellationToken token; // may be null
+    // calls since the clock was last read, counted here as the nodes of the callers may step over any
+    // multiple; the threads sharing a budget may lose increments, that only delays the next poll a little.
+    // The first call polls, so a search given a cancelled token or a passed deadline stops right away
+    private int calls = CLOCK_INTERVAL - 1;
+
+    private SearchBudget(long deadline, long maxNodes, long maxFrontier, CancellationToken token) {
+        this.deadline = deadline;
+        this.maxNodes = maxNodes;
+        this.maxFrontier = maxFrontier;
+        this.token = token;
+    }
+
+    // a budget of timeoutMillis from now (0 for no time limit) and maxNodes nodes (0 for no node limit)
+    public static SearchBudget of(long timeoutMillis, long maxNodes) {
+        return of(timeoutMillis, maxNodes, null);
+    }
+
+    // same as above, the search also stops once token (may be null) is cancelled
+    public static SearchBudget of(long timeoutMillis, long maxNodes, CancellationToken token) {
+        return of(timeoutMillis, maxNodes, 0, token);
+    }
+
+    // same as above, the search also stops once its open list holds more than maxFrontier boards
+    // (0 for no frontier limit)
+    public static SearchBudget of(long timeoutMillis, long maxNodes, long maxFrontier, CancellationToken token) {
+        long deadline = timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000L : Long.MAX_VALUE;
+        return new SearchBudget(deadline, maxNodes > 0 ? maxNodes : Long.MAX_VALUE,
+                maxFrontier > 0 ? maxFrontier : Long.MAX_VALUE, token);
+    }
+
+    // throws BudgetExceededException once the search holds more than maxNodes nodes or more than maxFrontier
+    // open boards, runs past the deadline, is cancelled or its thread is interrupted; the exception carries
+    // statistics, finished, so the caller learns what the search did before it stopped
+    void check(SearchStatistics statistics, long nodes, long frontier) {
+        if (nodes > maxNodes) throw stop(statistics, SolveStatus.BUDGET_EXCEEDED, "more than " + maxNodes + " nodes");
+        if (frontier > maxFrontier) {
+            throw stop(statistics, SolveStatus.BUDGET_EXCEEDED, "more than " + maxFrontier + " open boards");
+        }
+        if (this == UNLIMITED || ++calls < CLOCK_INTERVAL) return;
+        calls = 0;
+        if (System.nanoTime() - deadline > 0) throw stop(statistics, SolveStatus.TIMED_OUT, "deadline passed");
+        if (token != null && token.isCancelled()) throw stop(statistics, SolveStatus.CANCELLED, "cancelled");
+        if (Thread.currentThread().isInterrupted()) throw stop(statistics, SolveStatus.CANCELLED, "interrupted");
+    }
+
+    private static BudgetExceededException stop(SearchStatistics statistics, SolveStatus status, String message) {
+        statistics.finish();
+        return new BudgetExceededException(status, message).withStatistics(statistics);
+    }
+}
@@ -0,0 +1,7 @@
+// Called by a solver every few expansions while it searches, on the searching thread.
+public interface SearchListener {
+
+    // expanded boards so far, boards waiting in the open list (the current path for IDA*),
+    // f of the board just expanded, its moves from the initial board and the time since the search started
+    void progress(long expanded, int frontier, int bestF, int depth, long elapsedNanos);
+}
@@ -0,0 +1,82 @@
+import java.util.Locale;
+
+// What a search did: boards expanded and generated, duplicates pruned, the largest frontier and the time
+// it took. The solvers update it once per expansion, which also fires the optional SearchListener every
+// interval expansions; without a listener the cost is a few increments and a null check.
+public final class SearchStatistics {
+    private final SearchListener listener;
+    private final int interval;
+    private final long start = System.nanoTime();
+    private long elapsedNanos = -1;
+    long expanded;
+    long generated;
+    long duplicatesPruned;
+    long maxFrontier;
+
+    SearchStatistics() {
+        this(null, 1);
+    }
+
+    SearchStatistics(SearchListener listener, int interval) {
+        if (interval < 1) throw new IllegalArgumentException("interval must be positive");
+        this.listener = listener;
+        this.interval = interval;
+    }
+
+    // a board is about to be expanded
+    void expanded(int frontier, int f, int depth) {
+        expanded++;
+        if (frontier > maxFrontier) maxFrontier = frontier;
+        if (listener != null && expanded % interval == 0) {
+            listener.progress(expanded, frontier, f, depth, System.nanoTime() - start);
+        }
+    }
+
+    // the search is over
+    void finish() {
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    public long expanded() {
+        return expanded;
+    }
+
+    public long generated() {
+        return generated;
+    }
+
+    public long duplicatesPruned() {
+        return duplicatesPruned;
+    }
+
+    // the most boards the open list held at once (the deepest path for IDA*)
+    public long maxFrontier() {
+        return maxFrontier;
+    }
+
+    // time spent searching, up to now when the search is still running
+    public long elapsedNanos() {
+        return elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - start;
+    }
+
+    public static String csvHeader() {
+        return "expanded,generated,duplicatesPruned,maxFrontier,elapsedMillis";
+    }
+
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%d,%d,%d,%d,%.3f", expanded, generated, duplicatesPruned, maxFrontier,
+                elapsedNanos() / 1e6);
+    }
+
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"expanded\":%d,\"generated\":%d,\"duplicatesPruned\":%d,\"maxFrontier\":%d,\"elapsedMillis\":%.3f}",
+                expanded, generated, duplicatesPruned, maxFrontier, elapsedNanos() / 1e6);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d expanded, %d generated, %d duplicates pruned, max frontier %d, %.3f ms",
+                expanded, generated, duplicatesPruned, maxFrontier, elapsedNanos() / 1e6);
+    }
+}
@@ -0,0 +1,265 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Optimal solutions of the boards already solved, shared by any number of solvers and threads.
+// A board is keyed by its packed() encoding so only boards up to 4x4 are cached (the encodings of
+// different dimensions never collide, every tile is in them). An entry holds the MoveSequence of the
+// solution, 2 bits per move, so a 50 move solution costs 16 bytes plus the fixed overhead of the entry.
+// The least recently used entries are evicted once the cache holds more than maxEntries entries or more
+// than maxBytes estimated bytes.
+//
+// Besides the answers to repeated boards the cache shortens searches: a cached board has an exact
+// distance to the goal, an A* search that pops it is done (see Solver). The searches look up every board they
+// generate, so peek() takes no lock: it probes an open addressing index of the entries that only put() changes,
+// under the lock. An entry never changes, a search that reads the index while it changes at worst misses a
+// board or finds one that was just evicted, whose solution is still right.
+//
+// % java PuzzleChecker -cache=solutions.bin SampleData/*.txt
+public final class SolutionCache {
+    private static final int MAGIC = 0x534f4c32; // "SOL2"
+    // object headers, the boxed key, the map entry and two slots of the index, roughly
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    // in insertion order, get() moves the entry it finds to the end so the eldest one is the least recently used
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>();
+    // the same entries by key with linear probing, at most half full; replaced by a larger one when it fills up
+    private volatile AtomicReferenceArray<Entry> index = new AtomicReferenceArray<>(16);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private final LongAdder suffixHits = new LongAdder();
+
+    // a cache of at most maxEntries entries and maxBytes bytes
+    public SolutionCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive");
+        if (maxBytes < 1) throw new IllegalArgumentException("maxBytes must be positive");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    // a cached solution: its moves and the directions of the blank square (see MutableBoard)
+    static final class Entry {
+        final long key; // the packed board
+        final int dimension;
+        final int moves;
+        final MoveSequence path;
+
+        Entry(long key, int dimension, MoveSequence path) {
+            this.key = key;
+            this.dimension = dimension;
+            this.moves = path.length();
+            this.path = path;
+        }
+
+        int direction(int move) {
+            return path.direction(move);
+        }
+
+        private int cost() {
+            return ENTRY_OVERHEAD + path.bytes();
+        }
+    }
+
+    // the cached solution of initial as a solved PuzzleSolver, null when it is not cached
+    public synchronized PuzzleSolver get(Board initial) {
+        if (initial == null) throw new IllegalArgumentException();
+        Entry entry = initial.isPacked() ? entries.get(initial.packed()) : null;
+        if (entry == null || entry.dimension != initial.dimension()) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entries.remove(initial.packed());
+        entries.put(initial.packed(), entry);
+        return new CachedSolution(initial, entry);
+    }
+
+    // the exact distance of a board met during a search, null when it is not cached,
+    // the entry is not made more recent so that a search does not reorder the cache
+    Entry peek(int dimension, long packed) {
+        AtomicReferenceArray<Entry> table = index;
+        int mask = table.length() - 1;
+        int slot = slot(packed, mask);
+        for (int probes = 0; probes <= mask; probes++, slot = (slot + 1) & mask) {
+            Entry entry = table.get(slot);
+            if (entry == null) return null;
+            if (entry.key != packed) continue;
+            if (entry.dimension != dimension) return null;
+            suffixHits.increment();
+            return entry;
+        }
+        return null;
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // remember the solution found by solver for initial, nothing is kept for an unsolvable or large board
+    public void put(Board initial, PuzzleSolver solver) {
+        if (initial == null || solver == null) throw new IllegalArgumentException();
+        if (!initial.isPacked() || !solver.isSolvable()) return;
+        put(new Entry(initial.packed(), initial.dimension(), solver.moveSequence()));
+    }
+
+    private synchronized void put(Entry entry) {
+        Entry old = entries.remove(entry.key);
+        entries.put(entry.key, entry);
+        if (old != null) bytes -= old.cost();
+        bytes += entry.cost();
+        if (2 * entries.size() > index.length()) grow();
+        else insert(index, entry);
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            bytes -= evicted.cost();
+            eldest.remove();
+            remove(evicted.key);
+        }
+    }
+
+    // put entry in the slot of its key, or in the first free one after it
+    private static void insert(AtomicReferenceArray<Entry> table, Entry entry) {
+        int mask = table.length() - 1;
+        int slot = slot(entry.key, mask);
+        while (table.get(slot) != null && table.get(slot).key != entry.key) slot = (slot + 1) & mask;
+        table.set(slot, entry);
+    }
+
+    // a new index twice as large holding the entries, published once it is full
+    private void grow() {
+        AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(2 * index.length());
+        for (Entry entry : entries.values()) insert(table, entry);
+        index = table;
+    }
+
+    // take key out of the index, moving back the entries after it that would no longer be found
+    private void remove(long key) {
+        AtomicReferenceArray<Entry> table = index;
+        int mask = table.length() - 1;
+        int hole = slot(key, mask);
+        while (table.get(hole) != null && table.get(hole).key != key) hole = (hole + 1) & mask;
+        if (table.get(hole) == null) return;
+        for (int slot = (hole + 1) & mask; table.get(slot) != null; slot = (slot + 1) & mask) {
+            Entry entry = table.get(slot);
+            // entry can fill the hole when the hole lies between the slot of its key and slot
+            if (((slot - slot(entry.key, mask)) & mask) >= ((slot - hole) & mask)) {
+                table.set(hole, entry);
+                hole = slot;
+            }
+        }
+        table.set(hole, null);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // estimated memory held by the entries
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    // get() calls that found the board
+    public synchronized long hits() {
+        return hits;
+    }
+
+    // get() calls that did not
+    public synchronized long misses() {
+        return misses;
+    }
+
+    // cached boards met inside searches
+    public long suffixHits() {
+        return suffixHits.sum();
+    }
+
+    public synchronized double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d entries, %d bytes, %d hits, %d misses, hit rate %.1f%%, %d hits inside searches",
+                entries.size(), bytes, hits, misses, 100 * hitRate(), suffixHits.sum());
+    }
+
+    // write the entries to file, from the least to the most recently used
+    public synchronized void save(String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(entries.size());
+            for (Map.Entry<Long, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeLong(e.getKey());
+                out.writeByte(entry.dimension);
+                entry.path.write(out);
+            }
+        }
+    }
+
+    // add the entries saved to file, the most recently used ones are kept when they do not all fit
+    public void load(String file) throws IOException {
+        List<Entry> loaded = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a solution cache");
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long key = in.readLong();
+                int dimension = in.readUnsignedByte();
+                loaded.add(new Entry(key, dimension, MoveSequence.read(in)));
+            }
+        }
+        for (Entry entry : loaded) put(entry);
+    }
+
+    // a solver answered by the cache, the boards of the solution are replayed from the directions
+    private static final class CachedSolution implements PuzzleSolver {
+        private final Board initial;
+        private final Entry entry;
+        private final SearchStatistics statistics = new SearchStatistics();
+
+        CachedSolution(Board initial, Entry entry) {
+            this.initial = initial;
+            this.entry = entry;
+            statistics.finish();
+        }
+
+        public boolean isSolvable() {
+            return true;
+        }
+
+        public int moves() {
+            return entry.moves;
+        }
+
+        public Iterable<Board> solution() {
+            return entry.path.boards(initial);
+        }
+
+        public MoveSequence moveSequence() {
+            return entry.path;
+        }
+
+        public SearchStatistics statistics() {
+            return statistics;
+        }
+    }
+}
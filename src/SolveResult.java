@@ -0,0 +1,60 @@
+// The outcome of SolverEngine.trySolve(): the solver when the search ran to the end, or why it stopped and
+// what it did until then. A search that stops never throws out of trySolve(), so one pathological board
+// only costs its own budget.
+public final class SolveResult {
+    private final SolveStatus status;
+    private final PuzzleSolver solver; // null unless SOLVED or UNSOLVABLE
+    private final SearchStatistics statistics; // null when a stopped solver did not report any
+    private final String message;
+
+    private SolveResult(SolveStatus status, PuzzleSolver solver, SearchStatistics statistics, String message) {
+        this.status = status;
+        this.solver = solver;
+        this.statistics = statistics;
+        this.message = message;
+    }
+
+    static SolveResult of(PuzzleSolver solver) {
+        SolveStatus status = solver.isSolvable() ? SolveStatus.SOLVED : SolveStatus.UNSOLVABLE;
+        return new SolveResult(status, solver, solver.statistics(), null);
+    }
+
+    static SolveResult stopped(BudgetExceededException e) {
+        return new SolveResult(e.status(), null, e.statistics(), e.getMessage());
+    }
+
+    public SolveStatus status() {
+        return status;
+    }
+
+    // did the search run to the end, SOLVED or UNSOLVABLE?
+    public boolean isComplete() {
+        return solver != null;
+    }
+
+    // the solver of a complete search, null otherwise
+    public PuzzleSolver solver() {
+        return solver;
+    }
+
+    // moves of the solution, -1 when unsolvable or stopped
+    public int moves() {
+        return solver == null ? -1 : solver.moves();
+    }
+
+    // what the search did, until it stopped when it did not complete, may be null then
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    // why the search stopped, null when it completed
+    public String message() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        if (solver == null) return status + " (" + message + ")";
+        return status + " in " + solver.moves() + " moves";
+    }
+}
@@ -0,0 +1,13 @@
+// how a solve ended, see SolveResult
+public enum SolveStatus {
+    // a solution was found, the shortest one unless the engine says otherwise (see AnytimeSolver)
+    SOLVED,
+    // the board cannot reach the goal
+    UNSOLVABLE,
+    // the deadline of the SearchBudget passed
+    TIMED_OUT,
+    // the search went over the nodes or the frontier size of the SearchBudget
+    BUDGET_EXCEEDED,
+    // the CancellationToken of the SearchBudget was cancelled or the thread was interrupted
+    CANCELLED
+}
@@ -1,73 +1,136 @@
 
-import edu.princeton.cs.algs4.MinPQ;
 import edu.princeton.cs.algs4.Queue;
-import edu.princeton.cs.algs4.Stack;
 
 import java.util.Objects;
 
-public class Solver {
-    private Node node;
+public class Solver implements PuzzleSolver {
     private int movesValue;
     private final boolean isSolvable;
-    private Iterable<Board> solutionBoards;
+    private final SearchStatistics statistics;
+    // once solved only the moves are kept, the search graph is garbage as soon as the constructor returns
+    private Board initial;
+    private MoveSequence moveSequence;
 
 
     // find a solution to the initial board (using the A* algorithm)
     public Solver(Board given) {
-        if (null == given) throw new IllegalArgumentException();
-        movesValue = -1;
-        Board initial = given;
-        Board twin = initial.twin();
-        // to avoid a null pointer when we querry the previous board as part of the critical optimisation we add itself as previous
+        this(given, StandardHeuristic.MANHATTAN);
+    }
+
+    // find a solution to the initial board with the A* algorithm guided by heuristic
+    public Solver(Board given, Heuristic heuristic) {
+        this(given, heuristic, SearchBudget.UNLIMITED);
+    }
 
-        Node node1 = new Node(initial, 0, new Node(initial, 0, null));
-        Node node2 = new Node(twin, 0, new Node(twin, 0, null));
+    // find a solution to the initial board with the A* algorithm guided by heuristic,
+    // throws BudgetExceededException when the search goes over budget
+    public Solver(Board given, Heuristic heuristic, SearchBudget budget) {
+        this(given, heuristic, budget, null, 1);
+    }
 
-        // Exactly one of the two (initial node or any twin node made from initial) will lead to the goal board.
-        // we run A* on two board instances, in locksteps, to find which board will lead to the goal board
-        MinPQ<Node> pq1 = new MinPQ<>(); // the initial board PQ
-        MinPQ<Node> pq2 = new MinPQ<>(); // a twin board PQ
+    // same as above, listener (may be null) is told about the search every interval expansions
+    public Solver(Board given, Heuristic heuristic, SearchBudget budget, SearchListener listener, int interval) {
+        this(given, heuristic, budget, listener, interval, null);
+    }
 
-        pq1.insert(node1); // insert initial node into PQ
-        pq2.insert(node2);
+    // same as above, the boards found in cache (may be null) are given their exact distance to the goal
+    // and the search ends as soon as one of them is popped with the lowest priority
+    public Solver(Board given, Heuristic heuristic, SearchBudget budget, SearchListener listener, int interval,
+                  SolutionCache cache) {
+        if (null == given || null == heuristic || null == budget) throw new IllegalArgumentException();
+        statistics = new SearchStatistics(listener, interval);
+        movesValue = -1;
+        initial = given;
+
+        // the parity of the initial board tells us upfront if the goal can be reached,
+        // there is no need to run a second search on a twin board to find out
+        isSolvable = initial.isSolvable();
+        if (!isSolvable) {
+            statistics.finish();
+            return;
+        }
 
-        // the first goal board found exits the search as they can't both be a goal board
-        while (!node1.board.isGoal() && !node2.board.isGoal()) {
+        // every 3x3 board has its distance in a table, there is nothing to search
+        if (initial.dimension() == 3) {
+            moveSequence = EightPuzzleTable.shared().solution(initial);
+            movesValue = moveSequence.length();
+            statistics.finish();
+            return;
+        }
+
+        // to avoid a null pointer when we querry the previous board as part of the critical optimisation we add itself as previous
+        int h = heuristic.estimate(initial);
+        Node node1 = new Node(initial, 0, new Node(initial, 0, null, h), h);
+        if (cache != null && initial.isPacked()) node1 = cached(node1, cache);
+
+        // f = moves + heuristic is a small integer so the open list is bucketed by priority
+        BucketQueue<Node> pq1 = new BucketQueue<>(); // the initial board PQ
+        pq1.insert(node1, node1.priorityFunction(), node1.tieBreak()); // insert initial node into PQ
+
+        // boards that fit in a long are tracked with the fewest moves they were reached with,
+        // larger boards only get the critical optimisation below
+        ClosedTable closed = initial.isPacked() ? new ClosedTable() : null;
+        if (closed != null) closed.put(initial.packed(), 0);
+
+        long nodes = 1;
+        while (!node1.board.isGoal()) {
+            budget.check(statistics, nodes, pq1.size());
             Node minNode1 = pq1.delMin();
-            for (Node neighbor : minNode1.neighbors()) {
+            // a shorter path to this board was found after it was inserted, the other node is already in the PQ
+            if (closed != null && closed.get(minNode1.board.packed()) < minNode1.moves) {
+                statistics.duplicatesPruned++;
+                continue;
+            }
+            // the heuristic of a cached board is exact so no path through another open node is shorter
+            if (minNode1.cached != null) {
+                node1 = minNode1.withCachedSuffix();
+                break;
+            }
+            statistics.expanded(pq1.size(), minNode1.priorityFunction(), minNode1.moves);
+            for (Node neighbor : minNode1.neighbors(heuristic)) {
                 // critical optimisation do not re-insert the previous node
                 // this hack of setting previous of initial to initial itself gives the following error message :
                 // - equals() compares a board to a board that is not a neighbor of a neighbor
                 // - this suggests either a bug in the critical optimization or an unnecessary
                 //   call to equals() for some purpose other than the critical optimization
                 // but we can ignore it has It has no consequences on timing nor memory nor correctness
-                if (!neighbor.board.equals(minNode1.previous.board)) {
-                    neighbor.previous = minNode1;
-                    neighbor.moves = minNode1.moves + 1;
-                    pq1.insert(neighbor);
+                if (closed == null) {
+                    if (neighbor.board.equals(minNode1.previous.board)) {
+                        statistics.duplicatesPruned++;
+                        continue;
+                    }
+                } else {
+                    // any board already reached with as few moves is a duplicate, the grandparent included
+                    long key = neighbor.board.packed();
+                    int knownMoves = closed.get(key);
+                    if (knownMoves >= 0 && knownMoves <= minNode1.moves + 1) {
+                        statistics.duplicatesPruned++;
+                        continue;
+                    }
+                    closed.put(key, minNode1.moves + 1);
+                    if (cache != null) neighbor = cached(neighbor, cache);
                 }
+                neighbor.previous = minNode1;
+                neighbor.moves = minNode1.moves + 1;
+                pq1.insert(neighbor, neighbor.priorityFunction(), neighbor.tieBreak());
+                nodes++;
+                statistics.generated++;
             }
             node1 = minNode1;
-
-            // build of the second tree with twin as root
-            Node minNode2 = pq2.delMin();
-            for (Node neighbor : minNode2.neighbors()) {
-
-                if (!neighbor.board.equals(minNode2.previous.board)) {
-                    neighbor.previous = minNode2;
-                    neighbor.moves = minNode2.moves + 1;
-                    pq2.insert(neighbor);
-                }
-            }
-            node2 = minNode2;
         }
 
-        // we have exited the search so one of the boards is a goal!
-        isSolvable = node1.board.isGoal(); // we are only interested in the solvability of node1?
-        if (isSolvable) {
-            node = node1;
-            movesValue = node1.moves;
-        } // if node2 is solvable we can be certain that node1 isn't see propriety of boards.
+        moveSequence = node1.moveSequence();
+        movesValue = node1.moves;
+        statistics.finish();
+    }
+
+    // node itself, or a copy whose heuristic is the exact distance when its board is in cache
+    private static Node cached(Node node, SolutionCache cache) {
+        SolutionCache.Entry entry = cache.peek(node.board.dimension(), node.board.packed());
+        if (entry == null) return node;
+        Node exact = new Node(node.board, node.moves, node.previous, entry.moves);
+        exact.cached = entry;
+        return exact;
     }
 
     // is the initial board solvable? (see below)
@@ -75,6 +138,11 @@ public class Solver {
         return isSolvable;
     }
 
+    // what the search did to find the solution
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
     // min number of moves to solve initial board
     public int moves() {
         return movesValue;
@@ -84,25 +152,12 @@ public class Solver {
     public Iterable<Board> solution() {
         if (!isSolvable()) return null;
 
-        if (null != solutionBoards) return solutionBoards;
-        else {
-            Stack<Board> reversedStack = new Stack<>();
-            Queue<Board> invertedSolutionQueue = new Queue<>();
-            Queue<Board> solutionQueue = new Queue<>();
+        return moveSequence.boards(initial);
+    }
 
-            while (null != node.previous) {
-                invertedSolutionQueue.enqueue(node.board);
-                node = node.previous;
-            }
-            while (!invertedSolutionQueue.isEmpty()) {
-                reversedStack.push(invertedSolutionQueue.dequeue());
-            }
-            while (!reversedStack.isEmpty()) {
-                solutionQueue.enqueue(reversedStack.pop());
-            }
-            solutionBoards = solutionQueue;
-        }
-        return solutionBoards;
+    // the moves of the blank square in a shortest solution
+    public MoveSequence moveSequence() {
+        return moveSequence;
     }
 
     // the Node type that holds:
@@ -110,24 +165,54 @@ public class Solver {
         Board board;
         Node previous;
         int moves;
-        final int manhattanValue;
+        final int heuristicValue;
+        SolutionCache.Entry cached; // the solution from this board when it was found in a cache
 
-        Node(Board board, int moves, Node previous) {
+        Node(Board board, int moves, Node previous, int heuristicValue) {
             this.board = board;
             this.moves = moves;
             this.previous = previous;
-            this.manhattanValue = this.board.manhattan();
+            this.heuristicValue = heuristicValue;
         }
 
         private final int priorityFunction() {
-            return manhattanValue + moves; // We choose the manhattan priority function
+            return heuristicValue + moves; // the priority function of A*
         }
 
-        // all the neighboring nodes
-        Queue<Node> neighbors() {
+        // the bucket among the nodes of the same priority, the closest to the goal first and a cached board
+        // before any other since its priority is the length of a solution
+        int tieBreak() {
+            return cached != null ? 0 : heuristicValue;
+        }
+
+        // the directions of the blank square along the previous links, from the initial node to this one
+        MoveSequence moveSequence() {
+            int[] directions = new int[moves];
+            int n = board.dimension();
+            for (Node node = this; node.moves > 0; node = node.previous) {
+                directions[node.moves - 1] = MoveSequence.direction(node.previous.board.blankIndex(),
+                        node.board.blankIndex(), n);
+            }
+            return MoveSequence.of(directions, moves);
+        }
+
+        // the goal node reached by replaying the cached solution from this node
+        Node withCachedSuffix() {
+            Node last = this;
+            for (int move = 0; move < cached.moves; move++) {
+                last = new Node(last.board.slide(cached.direction(move)), last.moves + 1, last, 0);
+            }
+            return last;
+        }
+
+        // all the neighboring nodes, their heuristic is updated from ours with the tile that moved
+        Queue<Node> neighbors(Heuristic heuristic) {
             Queue<Node> nodeNeighbors = new Queue<>();
+            int to = this.board.blankIndex();
             for (Board neighbor : this.board.neighbors()) {
-                Node nodeNeighbor = new Node(neighbor, this.moves + 1, this);
+                int from = neighbor.blankIndex();
+                int h = heuristic.update(neighbor, heuristicValue, neighbor.tileAt(to), from, to);
+                Node nodeNeighbor = new Node(neighbor, this.moves + 1, this, h);
                 nodeNeighbors.enqueue(nodeNeighbor);
             }
             return nodeNeighbors;
@@ -152,17 +237,12 @@ public class Solver {
             return Objects.hash(board, previous, priorityFunction(), moves);
         }
 
+        // lower priority first, then the node closest to the goal, the order used by the BucketQueue
         @Override
         public int compareTo(Node that) {
-            int res = -1;
-            if (this.priorityFunction() > that.priorityFunction()) res = 1;
-            else if (this.priorityFunction() < that.priorityFunction()) res = 0;
-            else if (this.priorityFunction() == that.priorityFunction()) {
-                if (this.manhattanValue > that.manhattanValue) res = 1;
-                else if (this.manhattanValue < that.manhattanValue) res = 0;
-                else res = 1;
-            }
-            return res;
+            int byPriority = Integer.compare(this.priorityFunction(), that.priorityFunction());
+            if (byPriority != 0) return byPriority;
+            return Integer.compare(this.heuristicValue, that.heuristicValue);
         }
 
 
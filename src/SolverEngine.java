@@ -0,0 +1,166 @@
+import java.nio.file.Paths;
+
+// the search algorithms available to solve a board
+public enum SolverEngine {
+    // A* with a priority queue of nodes, fast but its memory grows with the explored states
+    ASTAR {
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval) {
+            return new Solver(initial, heuristic, budget, listener, interval);
+        }
+
+        @Override
+        PuzzleSolver search(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                            int interval, SolutionCache cache) {
+            return new Solver(initial, heuristic, budget, listener, interval, cache);
+        }
+    },
+    // A* over primitive arrays that allocates nothing per expansion, plain A* for boards larger than 4x4
+    ARENA {
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval) {
+            if (!initial.isPacked()) return new Solver(initial, heuristic, budget, listener, interval);
+            return new ArenaSolver(initial, heuristic, budget, listener, interval);
+        }
+    },
+    // hash distributed A* on one worker thread per processor, plain A* for boards larger than 4x4,
+    // the workers report no progress, only the statistics summed at the end
+    PARALLEL {
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval) {
+            if (!initial.isPacked()) return new Solver(initial, heuristic, budget, listener, interval);
+            return new ParallelSolver(initial, heuristic, Runtime.getRuntime().availableProcessors(), budget);
+        }
+    },
+    // weighted A* returning a first solution quickly then shorter ones until the budget runs out,
+    // see AnytimeSolver.suboptimalityBound() for how far from optimal the answer may be
+    ANYTIME {
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval) {
+            return new AnytimeSolver(initial, heuristic, AnytimeSolver.DEFAULT_WEIGHT, AnytimeSolver.DEFAULT_STEP,
+                    budget, listener, interval);
+        }
+
+        // the cache only holds shortest solutions
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval, SolutionCache cache) {
+            PuzzleSolver cached = cache == null ? null : cache.get(initial);
+            if (cached != null) return cached;
+            AnytimeSolver solver = new AnytimeSolver(initial, heuristic, AnytimeSolver.DEFAULT_WEIGHT,
+                    AnytimeSolver.DEFAULT_STEP, budget, listener, interval);
+            if (cache != null && solver.isOptimal()) cache.put(initial, solver);
+            return solver;
+        }
+    },
+    // row and column decomposition for boards of any size, fast but far from the shortest solution,
+    // the heuristic is not used
+    LARGE {
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval) {
+            return new LargeBoardSolver(initial, budget);
+        }
+
+        // the cache only holds shortest solutions
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval, SolutionCache cache) {
+            return solve(initial, heuristic, budget, listener, interval);
+        }
+    },
+    // MM bidirectional search meeting in the middle, plain A* for boards larger than 4x4
+    BIDIRECTIONAL {
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval) {
+            if (!initial.isPacked()) return new Solver(initial, heuristic, budget, listener, interval);
+            return new BidirectionalSolver(initial, heuristic, budget, listener, interval);
+        }
+    },
+    // external A* keeping its boards in bucket files in the temporary directory, plain A* for boards larger
+    // than 4x4
+    EXTERNAL {
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval) {
+            if (!initial.isPacked()) return new Solver(initial, heuristic, budget, listener, interval);
+            return new ExternalSolver(initial, heuristic, budget, listener, interval,
+                    Paths.get(System.getProperty("java.io.tmpdir")), ExternalSolver.DEFAULT_RUN_LONGS);
+        }
+    },
+    // iterative deepening A*, memory linear in the solution depth
+    IDA_STAR {
+        @Override
+        public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                  int interval) {
+            return new IdaSolver(initial, heuristic, budget, listener, interval);
+        }
+    };
+
+    // run this engine on initial with the Manhattan heuristic
+    public PuzzleSolver solve(Board initial) {
+        return solve(initial, StandardHeuristic.MANHATTAN);
+    }
+
+    // run this engine on initial guided by heuristic
+    public PuzzleSolver solve(Board initial, Heuristic heuristic) {
+        return solve(initial, heuristic, SearchBudget.UNLIMITED);
+    }
+
+    // run this engine on initial guided by heuristic, throws BudgetExceededException when it goes over budget
+    public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget) {
+        return solve(initial, heuristic, budget, null, 1);
+    }
+
+    // same as above, listener (may be null) is told about the search every interval expansions
+    public abstract PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget,
+                                       SearchListener listener, int interval);
+
+    // same as above, a board found in cache (may be null) is answered from it and the solution of any
+    // other board is added to it
+    public PuzzleSolver solve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                              int interval, SolutionCache cache) {
+        if (cache == null) return solve(initial, heuristic, budget, listener, interval);
+        PuzzleSolver cached = cache.get(initial);
+        if (cached != null) return cached;
+        PuzzleSolver solver = search(initial, heuristic, budget, listener, interval, cache);
+        cache.put(initial, solver);
+        return solver;
+    }
+
+    // the search run on a board missing from cache, the engines that can use the cached boards met
+    // along the way override it
+    PuzzleSolver search(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                        int interval, SolutionCache cache) {
+        return solve(initial, heuristic, budget, listener, interval);
+    }
+
+    // run this engine on initial guided by heuristic, a search that goes over budget is not an exception
+    // but a result that says why it stopped
+    public SolveResult trySolve(Board initial, Heuristic heuristic, SearchBudget budget) {
+        return trySolve(initial, heuristic, budget, null, 1, null);
+    }
+
+    // same as above, with a listener (may be null) and a cache (may be null) as in solve()
+    public SolveResult trySolve(Board initial, Heuristic heuristic, SearchBudget budget, SearchListener listener,
+                                int interval, SolutionCache cache) {
+        try {
+            return SolveResult.of(solve(initial, heuristic, budget, listener, interval, cache));
+        } catch (BudgetExceededException e) {
+            return SolveResult.stopped(e);
+        }
+    }
+
+    // the engine named on a command line, "astar" or "ida" for instance
+    public static SolverEngine parse(String name) {
+        String normalized = name.trim().toUpperCase().replace('-', '_').replace("*", "STAR");
+        if (normalized.equals("IDA")) return IDA_STAR;
+        if (normalized.equals("MM")) return BIDIRECTIONAL;
+        return valueOf(normalized);
+    }
+}
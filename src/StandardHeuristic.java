@@ -0,0 +1,147 @@
+// the heuristics shipped with the solvers, all of them updated incrementally after a slide
+public enum StandardHeuristic implements Heuristic {
+    // number of tiles out of place
+    HAMMING {
+        @Override
+        public int estimate(TileGrid board) {
+            int size = board.dimension() * board.dimension();
+            int value = 0;
+            for (int index = 0; index < size; index++) {
+                int tile = board.tileAt(index);
+                if (tile != 0 && tile != index + 1) value++;
+            }
+            return value;
+        }
+
+        @Override
+        public int update(TileGrid board, int value, int tile, int from, int to) {
+            return value - (tile == from + 1 ? 0 : 1) + (tile == to + 1 ? 0 : 1);
+        }
+    },
+    // sum of Manhattan distances between tiles and goal
+    MANHATTAN {
+        @Override
+        public int estimate(TileGrid board) {
+            return manhattan(board);
+        }
+
+        @Override
+        public int update(TileGrid board, int value, int tile, int from, int to) {
+            int n = board.dimension();
+            return value - distance(tile, from, n) + distance(tile, to, n);
+        }
+    },
+    // Manhattan distance plus two moves for every tile that has to leave its goal row or column
+    // to let another tile of the same line go past it
+    LINEAR_CONFLICT {
+        @Override
+        public int estimate(TileGrid board) {
+            int n = board.dimension();
+            int value = manhattan(board);
+            for (int line = 0; line < n; line++) {
+                value += lineConflicts(board, line, true, -1, -1, 0);
+                value += lineConflicts(board, line, false, -1, -1, 0);
+            }
+            return value;
+        }
+
+        @Override
+        public int update(TileGrid board, int value, int tile, int from, int to) {
+            int n = board.dimension();
+            value += distance(tile, to, n) - distance(tile, from, n);
+            // a vertical slide only changes the rows of the tile, its column keeps the same order of tiles,
+            // and the other way around for a horizontal slide
+            boolean vertical = Math.abs(from - to) == n;
+            int lineFrom = vertical ? from / n : from % n;
+            int lineTo = vertical ? to / n : to % n;
+            boolean row = vertical;
+            value -= lineConflicts(board, lineFrom, row, from, to, tile);
+            value -= lineConflicts(board, lineTo, row, from, to, tile);
+            value += lineConflicts(board, lineFrom, row, -1, -1, 0);
+            value += lineConflicts(board, lineTo, row, -1, -1, 0);
+            return value;
+        }
+    };
+
+    // the heuristic named on a command line, "manhattan" or "linear" for instance
+    public static StandardHeuristic parse(String name) {
+        String normalized = name.trim().toUpperCase().replace('-', '_');
+        if (normalized.equals("LINEAR")) return LINEAR_CONFLICT;
+        return valueOf(normalized);
+    }
+
+    private static int manhattan(TileGrid board) {
+        int n = board.dimension();
+        BoardKernel kernel = BoardKernel.of(n);
+        if (kernel != null && board instanceof Board) return kernel.manhattan(((Board) board).packed());
+        int size = n * n;
+        int value = 0;
+        for (int index = 0; index < size; index++) {
+            int tile = board.tileAt(index);
+            if (tile != 0) value += distance(tile, index, n);
+        }
+        return value;
+    }
+
+    // Manhattan distance of tile when it sits at index
+    static int distance(int tile, int index, int n) {
+        BoardKernel kernel = BoardKernel.of(n);
+        if (kernel != null) return kernel.distance(tile, index);
+        return Math.abs(index / n - (tile - 1) / n) + Math.abs(index % n - (tile - 1) % n);
+    }
+
+    // extra moves caused by the conflicts of a row (or column): the tiles of the line that belong to it
+    // must keep their goal order, every tile that has to be taken out of the line costs two moves.
+    // When from >= 0 the line is read as it was before tile slid from index from to index to.
+    private static int lineConflicts(TileGrid board, int line, boolean row, int from, int to, int tile) {
+        int n = board.dimension();
+        if (n > Long.SIZE) return wideLineConflicts(board, line, row, from, to, tile);
+        // the tiles that can stay form the longest increasing subsequence of their goal positions, found by
+        // patience sorting without allocating: bit p of piles is set when a pile ends with goal position p, each
+        // position replaces the smallest pile end above it, and there are as many piles as tiles that can stay
+        long piles = 0L;
+        int count = 0;
+        for (int k = 0; k < n; k++) {
+            int goal = goalOnLine(board, line, row, from, to, tile, k);
+            if (goal < 0) continue;
+            count++;
+            long above = piles & (-1L << goal);
+            piles = (piles ^ (above & -above)) | (1L << goal);
+        }
+        return 2 * (count - Long.bitCount(piles));
+    }
+
+    // goal position along the line of the tile at its k-th square, -1 when it does not belong to the line
+    private static int goalOnLine(TileGrid board, int line, boolean row, int from, int to, int tile, int k) {
+        int n = board.dimension();
+        int index = row ? line * n + k : k * n + line;
+        int found = index == from ? tile : index == to && from >= 0 ? 0 : board.tileAt(index);
+        if (found == 0) return -1;
+        int goalRow = (found - 1) / n;
+        int goalColumn = (found - 1) % n;
+        if (row) return goalRow == line ? goalColumn : -1;
+        return goalColumn == line ? goalRow : -1;
+    }
+
+    // same as above for boards wider than a long, with a quadratic longest increasing subsequence
+    private static int wideLineConflicts(TileGrid board, int line, boolean row, int from, int to, int tile) {
+        int n = board.dimension();
+        int[] goals = new int[n];
+        int count = 0;
+        for (int k = 0; k < n; k++) {
+            int goal = goalOnLine(board, line, row, from, to, tile, k);
+            if (goal >= 0) goals[count++] = goal;
+        }
+        if (count < 2) return 0;
+        int[] longest = new int[count];
+        int kept = 0;
+        for (int a = 0; a < count; a++) {
+            longest[a] = 1;
+            for (int b = 0; b < a; b++) {
+                if (goals[b] < goals[a] && longest[b] + 1 > longest[a]) longest[a] = longest[b] + 1;
+            }
+            if (longest[a] > kept) kept = longest[a];
+        }
+        return 2 * (count - kept);
+    }
+}
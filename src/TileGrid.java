@@ -0,0 +1,9 @@
+// read-only view of the tiles of a board, what the heuristics need to evaluate a position
+public interface TileGrid {
+
+    // board dimension n * n
+    int dimension();
+
+    // the tile at the row-major index, 0 for the blank square
+    int tileAt(int index);
+}